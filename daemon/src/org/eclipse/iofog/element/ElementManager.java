@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * IOElements common repository
@@ -29,6 +30,7 @@ public class ElementManager {
 	private Map<String, Route> routes;
 	private Map<String, String> configs;
 	private List<Registry> registries;
+	private final Map<String, Element> elementsByIpAddress;
 	private static ElementManager instance = null;
 	
 	private ElementManager() {
@@ -36,6 +38,7 @@ public class ElementManager {
 		routes = new HashMap<>();
 		configs = new HashMap<>();
 		registries = new ArrayList<>();
+		elementsByIpAddress = new ConcurrentHashMap<>();
 	}
 	
 	public static ElementManager getInstance() {
@@ -95,9 +98,40 @@ public class ElementManager {
 	public void setElements(List<Element> elements) {
 		synchronized (ElementManager.class) {
 			this.elements = elements;
+			elementsByIpAddress.clear();
+			for (Element element : elements)
+				if (element.getContainerIpAddress() != null)
+					elementsByIpAddress.put(element.getContainerIpAddress(), element);
 		}
 	}
 
+	/**
+	 * sets container ip address of {@link Element} and updates ip address index
+	 * 
+	 * @param element - {@link Element}
+	 * @param ipAddress - container ip address
+	 */
+	public void setElementIpAddress(Element element, String ipAddress) {
+		synchronized (ElementManager.class) {
+			String oldIpAddress = element.getContainerIpAddress();
+			if (oldIpAddress != null)
+				elementsByIpAddress.remove(oldIpAddress, element);
+			element.setContainerIpAddress(ipAddress);
+			if (ipAddress != null)
+				elementsByIpAddress.put(ipAddress, element);
+		}
+	}
+
+	/**
+	 * returns {@link Element} running in container with given ip address
+	 * 
+	 * @param ipAddress - container ip address
+	 * @return {@link Element} or null
+	 */
+	public Element getElementByIpAddress(String ipAddress) {
+		return elementsByIpAddress.get(ipAddress);
+	}
+
 	public void setRoutes(Map<String, Route> routes) {
 		synchronized (ElementManager.class) {
 			this.routes = routes;
@@ -118,6 +152,7 @@ public class ElementManager {
 			routes.clear();
 			configs.clear();
 			registries.clear();
+			elementsByIpAddress.clear();
 		}
 	}
 
@@ -13,7 +13,12 @@
 package org.eclipse.iofog.element;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.iofog.utils.Constants.ReassemblyMode;
 
 /**
  * represents IOElements routings
@@ -23,9 +28,13 @@ import java.util.List;
  */
 public class Route {
 	private List<String> receivers;
+	private Map<String, ReassemblyMode> reassemblyModes;
+	private Map<String, RouteFilter> filters;
 	
 	public Route() {
 		receivers = new ArrayList<>();
+		reassemblyModes = new HashMap<>();
+		filters = new HashMap<>();
 	}
 
 	public List<String> getReceivers() {
@@ -36,6 +45,59 @@ public class Route {
 		this.receivers = receivers;
 	}
 
+	/**
+	 * returns how message groups must be reassembled for a receiver
+	 * 
+	 * @param receiver - ID of receiver {@link Element}
+	 * @return {@link ReassemblyMode} or null if groups are delivered as they are
+	 */
+	public ReassemblyMode getReassemblyMode(String receiver) {
+		return reassemblyModes.get(receiver);
+	}
+
+	public Map<String, ReassemblyMode> getReassemblyModes() {
+		return reassemblyModes;
+	}
+
+	public void setReassemblyModes(Map<String, ReassemblyMode> reassemblyModes) {
+		this.reassemblyModes = reassemblyModes;
+	}
+
+	/**
+	 * returns conditions of messages to be routed to a receiver
+	 * 
+	 * @param receiver - ID of receiver {@link Element}
+	 * @return {@link RouteFilter} or null if all messages are routed
+	 */
+	public RouteFilter getFilter(String receiver) {
+		return filters.get(receiver);
+	}
+
+	public Map<String, RouteFilter> getFilters() {
+		return filters;
+	}
+
+	public void setFilters(Map<String, RouteFilter> filters) {
+		this.filters = filters;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		Route route = (Route) o;
+		return Objects.equals(receivers, route.receivers)
+				&& Objects.equals(reassemblyModes, route.reassemblyModes)
+				&& Objects.equals(filters, route.filters);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(receivers, reassemblyModes, filters);
+	}
+
 	@Override
 	public String toString() {
 		String in = "\"receivers\" : [";
@@ -43,6 +105,18 @@ public class Route {
 			for (String e : receivers)
 				in += "\"" + e + "\",";
 		in += "]";
+		if (reassemblyModes != null && !reassemblyModes.isEmpty()) {
+			in += ", \"reassembly\" : {";
+			for (Map.Entry<String, ReassemblyMode> e : reassemblyModes.entrySet())
+				in += "\"" + e.getKey() + "\" : \"" + e.getValue().name().toLowerCase() + "\",";
+			in += "}";
+		}
+		if (filters != null && !filters.isEmpty()) {
+			in += ", \"filters\" : {";
+			for (Map.Entry<String, RouteFilter> e : filters.entrySet())
+				in += "\"" + e.getKey() + "\" : " + e.getValue() + ",";
+			in += "}";
+		}
 		return "{" + in + "}";
 	}
 }
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.element;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * represents conditions a message must meet to be routed to a receiver
+ * empty lists and negative sizes mean no condition
+ * 
+ * @author saeid
+ *
+ */
+public class RouteFilter {
+	private List<String> infoTypes;
+	private List<String> infoFormats;
+	private List<String> tags;
+	private long minSize;
+	private long maxSize;
+
+	public RouteFilter() {
+		infoTypes = new ArrayList<>();
+		infoFormats = new ArrayList<>();
+		tags = new ArrayList<>();
+		minSize = -1;
+		maxSize = -1;
+	}
+
+	public List<String> getInfoTypes() {
+		return infoTypes;
+	}
+
+	public void setInfoTypes(List<String> infoTypes) {
+		this.infoTypes = infoTypes;
+	}
+
+	public List<String> getInfoFormats() {
+		return infoFormats;
+	}
+
+	public void setInfoFormats(List<String> infoFormats) {
+		this.infoFormats = infoFormats;
+	}
+
+	/**
+	 * returns accepted tags
+	 * tag ending with "*" matches any tag starting with the rest of it
+	 * 
+	 * @return list of tags
+	 */
+	public List<String> getTags() {
+		return tags;
+	}
+
+	public void setTags(List<String> tags) {
+		this.tags = tags;
+	}
+
+	public long getMinSize() {
+		return minSize;
+	}
+
+	public void setMinSize(long minSize) {
+		this.minSize = minSize;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	private String toJsonArray(List<String> items) {
+		String result = "[";
+		for (String item : items)
+			result += "\"" + item + "\",";
+		return result + "]";
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		RouteFilter filter = (RouteFilter) o;
+		return minSize == filter.minSize && maxSize == filter.maxSize
+				&& Objects.equals(infoTypes, filter.infoTypes)
+				&& Objects.equals(infoFormats, filter.infoFormats)
+				&& Objects.equals(tags, filter.tags);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(infoTypes, infoFormats, tags, minSize, maxSize);
+	}
+
+	@Override
+	public String toString() {
+		return "{\"infotype\" : " + toJsonArray(infoTypes) + ", \"infoformat\" : " + toJsonArray(infoFormats)
+				+ ", \"tag\" : " + toJsonArray(tags) + ", \"minsize\" : " + minSize + ", \"maxsize\" : " + maxSize + "}";
+	}
+}
@@ -34,6 +34,7 @@ import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
+import javax.json.JsonString;
 import javax.json.JsonWriter;
 import javax.net.ssl.SSLHandshakeException;
 
@@ -47,6 +48,7 @@ import org.eclipse.iofog.status_reporter.StatusReporter;
 import org.eclipse.iofog.utils.Constants;
 import org.eclipse.iofog.utils.Orchestrator;
 import org.eclipse.iofog.utils.Constants.ControllerStatus;
+import org.eclipse.iofog.utils.Constants.ReassemblyMode;
 import org.eclipse.iofog.utils.configuration.Configuration;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
@@ -110,6 +112,7 @@ public class FieldAgent {
 		result.put("processedmessages", StatusReporter.getMessageBusStatus().getProcessedMessages());
 		result.put("elementmessagecounts", StatusReporter.getMessageBusStatus().getJsonPublishedMessagesPerElement());
 		result.put("messagespeed", StatusReporter.getMessageBusStatus().getAverageSpeed());
+		result.put("routelatency", StatusReporter.getMessageBusStatus().getJsonRouteLatencies());
 		result.put("lastcommandtime", StatusReporter.getFieldAgentStatus().getLastCommandTime());
 		result.put("version", Constants.VERSION);
 
@@ -436,6 +439,29 @@ public class FieldAgent {
 					String receiver = receivers.getString(j);
 					elementRoute.getReceivers().add(receiver);
 				}
+
+				if (route.containsKey("reassembly")) {
+					JsonObject reassembly = route.getJsonObject("reassembly");
+					for (String receiver : reassembly.keySet()) {
+						try {
+							elementRoute.getReassemblyModes().put(receiver,
+									ReassemblyMode.valueOf(reassembly.getString(receiver).toUpperCase()));
+						} catch (Exception e) {
+							LoggingService.logWarning(MODULE_NAME, "invalid reassembly mode for " + receiver);
+						}
+					}
+				}
+
+				if (route.containsKey("filters")) {
+					JsonObject filters = route.getJsonObject("filters");
+					for (String receiver : filters.keySet()) {
+						try {
+							elementRoute.getFilters().put(receiver, parseRouteFilter(filters.getJsonObject(receiver)));
+						} catch (Exception e) {
+							LoggingService.logWarning(MODULE_NAME, "invalid route filter for " + receiver);
+						}
+					}
+				}
 				r.put(container, elementRoute);
 			}
 			elementManager.setRoutes(r);
@@ -446,6 +472,30 @@ public class FieldAgent {
 		}
 	}
 
+	/**
+	 * parses conditions of messages to be routed to a receiver
+	 * 
+	 * @param filter - {@link JsonObject} of filter
+	 * @return {@link RouteFilter}
+	 */
+	private RouteFilter parseRouteFilter(JsonObject filter) {
+		RouteFilter result = new RouteFilter();
+		if (filter.containsKey("infotype"))
+			filter.getJsonArray("infotype").getValuesAs(JsonString.class)
+				.forEach(value -> result.getInfoTypes().add(value.getString()));
+		if (filter.containsKey("infoformat"))
+			filter.getJsonArray("infoformat").getValuesAs(JsonString.class)
+				.forEach(value -> result.getInfoFormats().add(value.getString()));
+		if (filter.containsKey("tag"))
+			filter.getJsonArray("tag").getValuesAs(JsonString.class)
+				.forEach(value -> result.getTags().add(value.getString()));
+		if (filter.containsKey("minsize"))
+			result.setMinSize(filter.getJsonNumber("minsize").longValue());
+		if (filter.containsKey("maxsize"))
+			result.setMaxSize(filter.getJsonNumber("maxsize").longValue());
+		return result;
+	}
+
 	/**
 	 * gets list of IOElements from file or IOFog controller
 	 * 
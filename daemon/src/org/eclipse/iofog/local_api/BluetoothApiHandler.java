@@ -16,7 +16,6 @@ import java.util.concurrent.Callable;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
@@ -43,12 +42,12 @@ public class BluetoothApiHandler implements Callable<Object> {
 
 	private final FullHttpRequest req;
 	private ByteBuf outputBuffer;
-	private final byte[] content;
+	private final ByteBuf content;
 	public static Channel channel;
 	private HttpResponse response;
 
 	
-	public BluetoothApiHandler(FullHttpRequest req, ByteBuf outputBuffer, byte[] content) {
+	public BluetoothApiHandler(FullHttpRequest req, ByteBuf outputBuffer, ByteBuf content) {
 		this.req = req;
 		this.outputBuffer = outputBuffer;
 		this.content = content;
@@ -90,7 +89,7 @@ public class BluetoothApiHandler implements Callable<Object> {
                         }
                     });
 
-            ByteBuf requestContent = Unpooled.copiedBuffer(content);
+            ByteBuf requestContent = content.duplicate().retain();
             channel = b.connect(host, port).sync().channel();
             String endpoint = req.getUri().substring(12);
             FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, req.getMethod(), endpoint, requestContent);
@@ -17,11 +17,34 @@ import java.util.Map;
 
 /**
  * Configuration map to store the current containers configurations
+ * Each configuration has a version, increased when the configuration changes
  * @author ashita
  * @since 2016
  */
 public class ConfigurationMap {
 	static Map<String, String> containerConfigMap;
+	private static final Map<String, Long> containerConfigVersions = new HashMap<>();
+
+	/**
+	 * Configuration of the container with its version
+	 */
+	static final class VersionedConfig {
+		private final String config;
+		private final long version;
+
+		VersionedConfig(String config, long version) {
+			this.config = config;
+			this.version = version;
+		}
+
+		public String getConfig() {
+			return config;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+	}
 
 	private static ConfigurationMap instance = null;
 
@@ -45,4 +68,35 @@ public class ConfigurationMap {
 		}
 		return instance;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Store the containers configurations
+	 * Version of the new or changed configurations is increased
+	 * Versions of removed containers are kept so a re-added container continues the sequence
+	 * @param Map<String, String>
+	 * @return void
+	 */
+	static synchronized void setConfigs(Map<String, String> configs) {
+		Map<String, String> oldConfigs = containerConfigMap;
+		for (Map.Entry<String, String> entry : configs.entrySet()) {
+			String oldConfig = oldConfigs == null ? null : oldConfigs.get(entry.getKey());
+			if (oldConfig == null || !oldConfig.equals(entry.getValue()))
+				containerConfigVersions.merge(entry.getKey(), 1L, Long::sum);
+		}
+		containerConfigMap = configs;
+	}
+
+	/**
+	 * Get the configuration of the container with its version
+	 * @param String
+	 * @return VersionedConfig or null if no configuration found
+	 */
+	static synchronized VersionedConfig getVersionedConfig(String id) {
+		if (containerConfigMap == null)
+			return null;
+		String config = containerConfigMap.get(id);
+		if (config == null)
+			return null;
+		return new VersionedConfig(config, containerConfigVersions.getOrDefault(id, 0L));
+	}
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+
+/**
+ * JSON merge patch (RFC 7386) between two versions of the container configuration
+ * Applying the patch to the old configuration object gives the new one
+ * @author ashita
+ * @since 2016
+ */
+public final class ConfigurationPatch {
+
+	private ConfigurationPatch() {
+
+	}
+
+	/**
+	 * Create the merge patch from the old to the new configuration
+	 *
+	 * @param String,
+	 *            String
+	 * @return String or null if any of the configurations is not a JSON
+	 *         object or the new one has null values, which a merge patch
+	 *         can not express
+	 */
+	public static String create(String oldConfig, String newConfig) {
+		JsonObject source = parseObject(oldConfig);
+		JsonObject target = parseObject(newConfig);
+		if (source == null || target == null)
+			return null;
+		JsonObject patch = diff(source, target);
+		return patch == null ? null : patch.toString();
+	}
+
+	private static JsonObject parseObject(String config) {
+		if (config == null)
+			return null;
+		try (JsonReader reader = Json.createReader(new StringReader(config))) {
+			JsonStructure structure = reader.read();
+			return structure instanceof JsonObject ? (JsonObject) structure : null;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static JsonObject diff(JsonObject source, JsonObject target) {
+		JsonObjectBuilder builder = Json.createObjectBuilder();
+		for (String key : source.keySet()) {
+			if (!target.containsKey(key))
+				builder.addNull(key);
+		}
+		for (Map.Entry<String, JsonValue> entry : target.entrySet()) {
+			String key = entry.getKey();
+			JsonValue value = entry.getValue();
+			JsonValue oldValue = source.get(key);
+			if (value.equals(oldValue))
+				continue;
+			if (value instanceof JsonObject && oldValue instanceof JsonObject) {
+				JsonObject patch = diff((JsonObject) oldValue, (JsonObject) value);
+				if (patch == null)
+					return null;
+				builder.add(key, patch);
+			} else if (value.getValueType() == JsonValue.ValueType.NULL || containsNull(value)) {
+				return null;
+			} else {
+				builder.add(key, value);
+			}
+		}
+		return builder.build();
+	}
+
+	private static boolean containsNull(JsonValue value) {
+		if (!(value instanceof JsonObject))
+			return false;
+		for (JsonValue child : ((JsonObject) value).values()) {
+			if (child.getValueType() == JsonValue.ValueType.NULL || containsNull(child))
+				return true;
+		}
+		return false;
+	}
+}
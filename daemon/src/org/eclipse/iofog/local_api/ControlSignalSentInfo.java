@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.eclipse.iofog.local_api;
 
+import io.netty.util.Timeout;
+
 /**
  * Unacknowledged control signals with the try count.
  * @author ashita
@@ -20,7 +22,7 @@ package org.eclipse.iofog.local_api;
 public class ControlSignalSentInfo {
 	int sendTryCount = 0;
 	long timeMillis;
-	
+	Timeout retransmit;
 	ControlSignalSentInfo(int count, long timeMillis){
 		this.sendTryCount = count;
 		this.timeMillis = timeMillis;
@@ -52,4 +54,16 @@ public class ControlSignalSentInfo {
 		this.sendTryCount = sendTryCount;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Get pending retransmission of the signal
+	 * @param none
+	 * @return Timeout
+	 */
+	public Timeout getRetransmit() {
+		return retransmit;
+	}
+
+	public void setRetransmit(Timeout retransmit) {
+		this.retransmit = retransmit;
+	}
+}
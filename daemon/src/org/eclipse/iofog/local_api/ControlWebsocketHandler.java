@@ -14,16 +14,21 @@ package org.eclipse.iofog.local_api;
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.HOST;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 
+import org.eclipse.iofog.local_api.WebsocketConnection.ConfigPush;
+import org.eclipse.iofog.local_api.WebsocketConnection.Type;
 import org.eclipse.iofog.status_reporter.StatusReporter;
+import org.eclipse.iofog.utils.Constants;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
@@ -36,20 +41,31 @@ import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
  * Handler for the real-time control websocket Open real-time control websocket
  * Send control-signals
  * 
+ * With ?push=config in the socket URL the new configuration is sent instead of
+ * the control signal, with ?push=patch the JSON merge patch against the previous
+ * version is sent when it is smaller. The container acknowledges with ACK.
+ * Config frame: [OPCODE_CONFIG][0 - config, 1 - patch][8 bytes version][UTF-8 payload]
+ * Patch is sent only against version - 1 and retransmits always carry the configuration.
+ * 
  * @author ashita
  * @since 2016
  */
-public class ControlWebsocketHandler {
-	private final String MODULE_NAME = "Local API";
+public class ControlWebsocketHandler implements WebsocketFrameHandler.Role {
+	private static final String MODULE_NAME = "Local API";
 
 	private static final Byte OPCODE_PING = 0x9;
 	private static final Byte OPCODE_PONG = 0xA;
 	private static final Byte OPCODE_ACK = 0xB;
 	private static final Byte OPCODE_CONTROL_SIGNAL = 0xC;
+	private static final Byte OPCODE_CONFIG = 0xF;
+
+	private static final byte CONFIG_FULL = 0;
+	private static final byte CONFIG_PATCH = 1;
 
 	private static final String WEBSOCKET_PATH = "/v2/control/socket";
 
 	private WebSocketServerHandshaker handshaker;
+	private ConfigPush configPush = ConfigPush.SIGNAL;
 
 	/**
 	 * Handler to open the websocket for the real-time control signals
@@ -69,23 +85,55 @@ public class ControlWebsocketHandler {
 			LoggingService.logWarning(MODULE_NAME, " Missing ID or ID value in URL ");
 			return;
 		} else {
-			id = tokens[4].trim();
+			id = tokens[4].trim().split("\\?")[0];
+		}
+		List<String> push = new QueryStringDecoder(req.getUri()).parameters().get("push");
+		if (push != null) {
+			if ("config".equalsIgnoreCase(push.get(0)))
+				configPush = ConfigPush.CONFIG;
+			else if ("patch".equalsIgnoreCase(push.get(0)))
+				configPush = ConfigPush.PATCH;
 		}
 
 		// Handshake
 		WebSocketServerHandshakerFactory wsFactory = new WebSocketServerHandshakerFactory(getWebSocketLocation(req),
-				null, true, Integer.MAX_VALUE);
+				null, true, (int) Constants.LOCAL_API_MAX_BODY_BYTES);
 		handshaker = wsFactory.newHandshaker(req);
 		if (handshaker == null) {
 			WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
-		} else {
-			handshaker.handshake(ctx.channel(), req);
+			return;
 		}
+		handshaker.handshake(ctx.channel(), req);
+		ctx.pipeline().replace(ctx.handler(), "websocket", new WebsocketFrameHandler(this, id));
+	}
 
-		WebSocketMap.addWebsocket('C', id, ctx);
-		StatusReporter.setLocalApiStatus().setOpenConfigSocketsCount(WebSocketMap.controlWebsocketMap.size());
+	/**
+	 * Register the open control websocket of the container
+	 * Called once by the pipeline handler of the socket
+	 * In push mode the current configuration is sent right away
+	 * 
+	 * @param ChannelHandlerContext,
+	 *            String
+	 * @return void
+	 */
+	@Override
+	public void register(ChannelHandlerContext ctx, String id) {
+		WebsocketConnection connection = WebSocketMap.addControlWebsocket(id, ctx);
+		connection.setConfigPush(configPush);
+		if (configPush != ConfigPush.SIGNAL && ConfigurationMap.getVersionedConfig(id) != null)
+			ctx.executor().execute(() -> sendControlSignal(connection, 1, null, 0));
+		StatusReporter.setLocalApiStatus().setOpenConfigSocketsCount(WebSocketMap.getWebsocketsCount(Type.CONTROL));
+	}
 
-		return;
+	/**
+	 * Unregister the closed control websocket
+	 * 
+	 * @param ChannelHandlerContext
+	 * @return void
+	 */
+	@Override
+	public void unregister(ChannelHandlerContext ctx) {
+		closeWebsocket(ctx);
 	}
 
 	/**
@@ -96,6 +144,7 @@ public class ControlWebsocketHandler {
 	 *            WebSocketFrame
 	 * @return void
 	 */
+	@Override
 	public void handleWebSocketFrame(ChannelHandlerContext ctx, WebSocketFrame frame) throws Exception {
 
 		if (frame instanceof PingWebSocketFrame) {
@@ -103,11 +152,9 @@ public class ControlWebsocketHandler {
 			if (buffer.readableBytes() == 1) {
 				Byte opcode = buffer.readByte();
 				if (opcode == OPCODE_PING.intValue()) {
-					if (WebsocketUtil.hasContextInMap(ctx, WebSocketMap.controlWebsocketMap)) {
-						ByteBuf buffer1 = ctx.alloc().buffer();
-						buffer1.writeByte(OPCODE_PONG.intValue());
-						ctx.channel().write(new PongWebSocketFrame(buffer1));
-					}
+					ByteBuf buffer1 = ctx.alloc().buffer(1);
+					buffer1.writeByte(OPCODE_PONG.intValue());
+					ctx.channel().write(new PongWebSocketFrame(buffer1));
 				}
 			} else {
 				LoggingService.logInfo(MODULE_NAME, "Ping opcode not found");
@@ -121,22 +168,23 @@ public class ControlWebsocketHandler {
 			if (buffer2.readableBytes() == 1) {
 				Byte opcode = buffer2.readByte();
 				if (opcode == OPCODE_ACK.intValue()) {
-					WebSocketMap.unackControlSignalsMap.remove(ctx);
+					WebsocketConnection connection = WebSocketMap.getConnection(ctx);
+					if (connection != null)
+						clearControlSignal(connection);
 					return;
 				}
 			}
 		}
 
 		if (frame instanceof CloseWebSocketFrame) {
-			ctx.channel().close();
-			WebsocketUtil.removeWebsocketContextFromMap(ctx, WebSocketMap.controlWebsocketMap);
-			StatusReporter.setLocalApiStatus().setOpenConfigSocketsCount(WebSocketMap.controlWebsocketMap.size());
+			closeWebsocket(ctx);
 			return;
 		}
 	}
 
 	/**
 	 * Helper method to compare the configuration map to start control signals
+	 * Merge patch for the sockets in patch mode is created here, off the event loop
 	 * 
 	 * @param Map<String,
 	 *            String>, Map<String, String>
@@ -144,10 +192,7 @@ public class ControlWebsocketHandler {
 	 */
 	public void initiateControlSignal(Map<String, String> oldConfigMap, Map<String, String> newConfigMap)
 			throws Exception {
-		ChannelHandlerContext ctx = null;
-
 		// Compare the old and new config map
-		Hashtable<String, ChannelHandlerContext> controlMap = WebSocketMap.controlWebsocketMap;
 		ArrayList<String> changedConfigElmtsList = new ArrayList<String>();
 
 		for (Map.Entry<String, String> newEntry : newConfigMap.entrySet()) {
@@ -165,18 +210,124 @@ public class ControlWebsocketHandler {
 		}
 
 		for (String changedConfigElmtId : changedConfigElmtsList) {
-			if (controlMap.containsKey(changedConfigElmtId)) {
-				ctx = controlMap.get(changedConfigElmtId);
-				WebSocketMap.unackControlSignalsMap.put(ctx, new ControlSignalSentInfo(1, System.currentTimeMillis()));
-
-				ByteBuf buffer1 = ctx.alloc().buffer();
-				buffer1.writeByte(OPCODE_CONTROL_SIGNAL);
-				ctx.channel().writeAndFlush(new BinaryWebSocketFrame(buffer1));
+			WebsocketConnection connection = WebSocketMap.getControlWebsocket(changedConfigElmtId);
+			if (connection == null)
+				continue;
+			String patch = null;
+			long patchVersion = 0;
+			if (connection.getConfigPush() == ConfigPush.PATCH) {
+				ConfigurationMap.VersionedConfig config = ConfigurationMap.getVersionedConfig(changedConfigElmtId);
+				String newConfig = newConfigMap.get(changedConfigElmtId);
+				if (config != null && config.getConfig().equals(newConfig)) {
+					patch = ConfigurationPatch.create(oldConfigMap.get(changedConfigElmtId), newConfig);
+					if (patch != null && patch.length() >= newConfig.length())
+						patch = null;
+					patchVersion = config.getVersion();
+				}
 			}
+			String configPatch = patch;
+			long configPatchVersion = patchVersion;
+			connection.getContext().executor()
+					.execute(() -> sendControlSignal(connection, 1, configPatch, configPatchVersion));
 		}
 
 	}
 
+	/**
+	 * Send control signal or configuration and wait for the acknowledgement
+	 * Runs on the event loop of the websocket
+	 * 
+	 * @param WebsocketConnection,
+	 *            int, String - merge patch or null, long - version of the patch
+	 * @return void
+	 */
+	private static void sendControlSignal(WebsocketConnection connection, int tryCount, String patch,
+			long patchVersion) {
+		ChannelHandlerContext ctx = connection.getContext();
+		// container may not have the previous version while a push is not acknowledged
+		if (connection.getUnackControlSignal() != null)
+			patch = null;
+		clearControlSignal(connection);
+
+		ControlSignalSentInfo sentInfo = new ControlSignalSentInfo(tryCount, System.currentTimeMillis());
+		connection.setUnackControlSignal(sentInfo);
+		sentInfo.setRetransmit(WebsocketUtil.newAckTimeout(ctx, () -> retransmitControlSignal(connection, sentInfo),
+				WebsocketUtil.getAckTimeoutMillis(tryCount)));
+
+		ctx.channel().writeAndFlush(new BinaryWebSocketFrame(newControlFrame(connection, patch, patchVersion)));
+	}
+
+	/**
+	 * Build the control signal or config frame of the websocket
+	 * Falls back to the control signal if the configuration is gone
+	 * 
+	 * @param WebsocketConnection,
+	 *            String, long
+	 * @return ByteBuf
+	 */
+	private static ByteBuf newControlFrame(WebsocketConnection connection, String patch, long patchVersion) {
+		ChannelHandlerContext ctx = connection.getContext();
+		ConfigurationMap.VersionedConfig config = connection.getConfigPush() == ConfigPush.SIGNAL ? null
+				: ConfigurationMap.getVersionedConfig(connection.getId());
+		if (config == null) {
+			ByteBuf buffer1 = ctx.alloc().buffer(1);
+			buffer1.writeByte(OPCODE_CONTROL_SIGNAL);
+			return buffer1;
+		}
+
+		boolean sendPatch = patch != null && patchVersion == config.getVersion();
+		byte[] payload = (sendPatch ? patch : config.getConfig()).getBytes(StandardCharsets.UTF_8);
+		ByteBuf buffer = ctx.alloc().buffer(2 + Long.BYTES + payload.length);
+		buffer.writeByte(OPCODE_CONFIG);
+		buffer.writeByte(sendPatch ? CONFIG_PATCH : CONFIG_FULL);
+		buffer.writeLong(config.getVersion());
+		buffer.writeBytes(payload);
+		return buffer;
+	}
+
+	/**
+	 * Resend unacknowledged control signal
+	 * If tried LOCAL_API_MAX_SEND_TRIES times, close the websocket
+	 * 
+	 * @param WebsocketConnection,
+	 *            ControlSignalSentInfo
+	 * @return void
+	 */
+	private static void retransmitControlSignal(WebsocketConnection connection, ControlSignalSentInfo sentInfo) {
+		if (connection.getUnackControlSignal() != sentInfo)
+			return;
+
+		if (sentInfo.getSendTryCount() < Constants.LOCAL_API_MAX_SEND_TRIES) {
+			sendControlSignal(connection, sentInfo.getSendTryCount() + 1, null, 0);
+			return;
+		}
+		LoggingService.logInfo(MODULE_NAME, " Initiating control signal expires");
+		closeWebsocket(connection.getContext());
+	}
+
+	private static void clearControlSignal(WebsocketConnection connection) {
+		ControlSignalSentInfo sentInfo = connection.getUnackControlSignal();
+		if (sentInfo == null)
+			return;
+		if (sentInfo.getRetransmit() != null)
+			sentInfo.getRetransmit().cancel();
+		connection.setUnackControlSignal(null);
+	}
+
+	/**
+	 * Close the control websocket
+	 * 
+	 * @param ChannelHandlerContext
+	 * @return void
+	 */
+	private static void closeWebsocket(ChannelHandlerContext ctx) {
+		WebsocketConnection connection = WebSocketMap.removeWebsocket(ctx);
+		if (connection != null)
+			clearControlSignal(connection);
+		StatusReporter.setLocalApiStatus().setOpenConfigSocketsCount(WebSocketMap.getWebsocketsCount(Type.CONTROL));
+		ctx.channel().close();
+	}
+
 	/**
 	 * Websocket path
 	 * 
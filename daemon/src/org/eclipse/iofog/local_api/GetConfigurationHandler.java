@@ -16,7 +16,7 @@ import static io.netty.handler.codec.http.HttpMethod.POST;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
-import java.io.StringReader;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.Callable;
 
@@ -29,6 +29,7 @@ import javax.json.JsonReader;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -47,9 +48,9 @@ public class GetConfigurationHandler implements Callable<Object> {
 
 	private final HttpRequest req;
 	private ByteBuf outputBuffer;
-	private final byte[] content;
+	private final ByteBuf content;
 
-	public GetConfigurationHandler(HttpRequest req, ByteBuf outputBuffer, byte[] content) {
+	public GetConfigurationHandler(HttpRequest req, ByteBuf outputBuffer, ByteBuf content) {
 		this.req = req;
 		this.outputBuffer = outputBuffer;
 		this.content = content;
@@ -64,7 +65,7 @@ public class GetConfigurationHandler implements Callable<Object> {
 	public Object handleGetConfigurationRequest() {
 		if (req.getMethod() != POST) {
 			LoggingService.logWarning(MODULE_NAME, "Request method not allowed");
-			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED);
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED, outputBuffer);
 		}
 
 		HttpHeaders headers = req.headers();
@@ -76,8 +77,7 @@ public class GetConfigurationHandler implements Callable<Object> {
 			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.BAD_REQUEST, outputBuffer);
 		}
 
-		String requestBody = new String(content, StandardCharsets.UTF_8);
-		JsonReader reader = Json.createReader(new StringReader(requestBody));
+		JsonReader reader = Json.createReader(new InputStreamReader(new ByteBufInputStream(content.duplicate()), StandardCharsets.UTF_8));
 		JsonObject jsonObject = reader.readObject();
 
 		try {
@@ -91,12 +91,13 @@ public class GetConfigurationHandler implements Callable<Object> {
 
 		String receiverId = jsonObject.getString("id");
 
-		if (ConfigurationMap.containerConfigMap.containsKey(receiverId)) {
-			String containerConfig = ConfigurationMap.containerConfigMap.get(receiverId);
+		ConfigurationMap.VersionedConfig containerConfig = ConfigurationMap.getVersionedConfig(receiverId);
+		if (containerConfig != null) {
 			JsonBuilderFactory factory = Json.createBuilderFactory(null);
 			JsonObjectBuilder builder = factory.createObjectBuilder();
 			builder.add("status", "okay");
-			builder.add("config", containerConfig);
+			builder.add("config", containerConfig.getConfig());
+			builder.add("version", containerConfig.getVersion());
 			String result = builder.build().toString();
 			outputBuffer.writeBytes(result.getBytes());
 			FullHttpResponse res = new DefaultFullHttpResponse(HTTP_1_1, OK, outputBuffer);
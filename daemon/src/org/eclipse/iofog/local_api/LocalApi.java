@@ -12,10 +12,12 @@
  *******************************************************************************/
 package org.eclipse.iofog.local_api;
 
+import java.net.InetAddress;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.iofog.element.ElementManager;
+import org.eclipse.iofog.local_api.WebsocketConnection.Type;
 import org.eclipse.iofog.status_reporter.StatusReporter;
 import org.eclipse.iofog.utils.Constants;
 import org.eclipse.iofog.utils.Orchestrator;
@@ -34,6 +36,7 @@ public class LocalApi implements Runnable {
 	private static LocalApi instance = null;
 	public boolean isSeverStarted = false; 
 	private LocalApiServer server;
+	private volatile String localIpAddress = "127.0.0.1";
 
 	private LocalApi() {
 
@@ -68,7 +71,7 @@ public class LocalApi implements Runnable {
 
 	/**
 	 * Start local api server
-	 * Instantiate websocket map and configuration map
+	 * Instantiate configuration map
 	 * @param None
 	 * @return void
 	 */
@@ -76,17 +79,12 @@ public class LocalApi implements Runnable {
 	public void run() {
 		StatusReporter.setSupervisorStatus().setModuleStatus(Constants.LOCAL_API, ModulesStatus.STARTING);
 
-		WebSocketMap.getInstance();
 		ConfigurationMap.getInstance();
 
-		try {
-			StatusReporter.setLocalApiStatus().setCurrentIpAddress(Orchestrator.getInetAddress());
-		} catch (Exception e2) {
-			LoggingService.logWarning(MODULE_NAME, "Unable to find the IP address of the machine running ioFog: " + e2.getMessage());
-		}
+		refreshLocalIpAddress();
 
-		StatusReporter.setLocalApiStatus().setOpenConfigSocketsCount(WebSocketMap.controlWebsocketMap.size());
-		StatusReporter.setLocalApiStatus().setOpenMessageSocketsCount(WebSocketMap.messageWebsocketMap.size());
+		StatusReporter.setLocalApiStatus().setOpenConfigSocketsCount(WebSocketMap.getWebsocketsCount(Type.CONTROL));
+		StatusReporter.setLocalApiStatus().setOpenMessageSocketsCount(WebSocketMap.getWebsocketsCount(Type.MESSAGE));
 
 		retrieveContainerConfig();
 
@@ -112,6 +110,42 @@ public class LocalApi implements Runnable {
 
 	}
 
+	/**
+	 * Get the IP address of the ioFog network interface
+	 * Cached value, refreshed on configuration change
+	 * @param None
+	 * @return String
+	 */
+	public String getLocalIpAddress() {
+		return localIpAddress;
+	}
+
+	/**
+	 * Find the IP address of the ioFog network interface and cache it.
+	 * @param None
+	 * @return void
+	 */
+	private void refreshLocalIpAddress() {
+		try {
+			InetAddress address = Orchestrator.getInetAddress();
+			localIpAddress = address.getHostAddress();
+			StatusReporter.setLocalApiStatus().setCurrentIpAddress(address);
+		} catch (Exception e) {
+			localIpAddress = "127.0.0.1";
+			LoggingService.logWarning(MODULE_NAME, "Unable to find the IP address of the machine running ioFog: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Refresh the cached IP address when the network interface changes.
+	 * Called by configuration.
+	 * @param None
+	 * @return void
+	 */
+	public void instanceConfigUpdated() {
+		refreshLocalIpAddress();
+	}
+
 	/**
 	 * Get the containers configuration and store it.
 	 * @param None
@@ -119,7 +153,7 @@ public class LocalApi implements Runnable {
 	 */
 	public void retrieveContainerConfig() {
 		try {
-			ConfigurationMap.containerConfigMap = ElementManager.getInstance().getConfigs();
+			ConfigurationMap.setConfigs(ElementManager.getInstance().getConfigs());
 			LoggingService.logInfo(MODULE_NAME, "Container configuration retrieved");
 		} catch (Exception e) {
 			LoggingService.logWarning(MODULE_NAME, "unable to retrieve containers configuration: " + e.getMessage());
@@ -133,7 +167,7 @@ public class LocalApi implements Runnable {
 	 */
 	public void updateContainerConfig(){
 		try {
-			ConfigurationMap.containerConfigMap = ElementManager.getInstance().getConfigs();
+			ConfigurationMap.setConfigs(ElementManager.getInstance().getConfigs());
 			LoggingService.logInfo(MODULE_NAME, "Container configuration updated");
 		} catch (Exception e) {
 			LoggingService.logWarning(MODULE_NAME, "unable to update containers configuration: " + e.getMessage());
@@ -147,11 +181,7 @@ public class LocalApi implements Runnable {
 	 * @return void
 	 */
 	public void update(){
-		try {
-			StatusReporter.setLocalApiStatus().setCurrentIpAddress(Orchestrator.getInetAddress());
-		} catch (Exception e2) {
-			LoggingService.logWarning(MODULE_NAME, "Unable to find the IP address of the machine running ioFog: " + e2.getMessage());
-		}
+		refreshLocalIpAddress();
 
 		Map<String, String> oldConfigMap = new HashMap<String, String>();
 		oldConfigMap.putAll(ConfigurationMap.containerConfigMap);
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.eclipse.iofog.utils.Constants;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Dispatch table of the local api endpoints, built once at class loading.
+ * Exact paths are found with one hash lookup, prefix paths with one lookup
+ * per path segment up to MAX_PREFIX_SEGMENTS.
+ * @author ashita
+ * @since 2016
+ */
+public final class LocalApiRouter {
+
+	/**
+	 * How the request is served
+	 * INLINE - handler does not block and runs on the event loop
+	 * BLOCKING - handler runs on the worker thread pool
+	 * CONTROL_SOCKET, MESSAGE_SOCKET - websocket handshake
+	 */
+	public enum Mode {
+		INLINE, BLOCKING, CONTROL_SOCKET, MESSAGE_SOCKET
+	}
+
+	/**
+	 * Create the handler of the request
+	 */
+	public interface HandlerFactory {
+		Callable<? extends Object> create(HttpRequest req, ByteBuf outputBuffer, ByteBuf content);
+	}
+
+	public static final class Route {
+		private final Mode mode;
+		private final HandlerFactory factory;
+		private final long maxBodyBytes;
+
+		private Route(Mode mode, HandlerFactory factory, long maxBodyBytes) {
+			this.mode = mode;
+			this.factory = factory;
+			this.maxBodyBytes = maxBodyBytes;
+		}
+
+		public Mode getMode() {
+			return mode;
+		}
+
+		public HandlerFactory getFactory() {
+			return factory;
+		}
+
+		public long getMaxBodyBytes() {
+			return maxBodyBytes;
+		}
+	}
+
+	private static final int MAX_PREFIX_SEGMENTS = 3;
+
+	private static final Map<String, Route> exactRoutes = new HashMap<>();
+	private static final Map<String, Route> prefixRoutes = new HashMap<>();
+
+	static {
+		exact("/metrics", Mode.INLINE, (req, out, content) -> new MetricsHandler(req, out));
+		exact("/v2/config/get", Mode.INLINE, GetConfigurationHandler::new);
+		exact("/v2/messages/next", Mode.BLOCKING, MessageReceiverHandler::new);
+		exact("/v2/messages/ack", Mode.BLOCKING, MessageAckHandler::new);
+		exact("/v2/messages/stats", Mode.INLINE, (req, out, content) -> new MessageStatsHandler(req, out));
+		exact("/v2/messages/new", Mode.BLOCKING, MessageSenderHandler::new, Constants.LOCAL_API_MAX_MESSAGE_BODY_BYTES);
+		exact("/v2/messages/query", Mode.BLOCKING, QueryMessageReceiverHandler::new);
+		exact("/v2/shm/allocate", Mode.INLINE, SharedMemoryAllocateHandler::new);
+		exact("/v2/shm/release", Mode.INLINE, SharedMemoryReleaseHandler::new);
+
+		prefix("/v2/restblue", Mode.BLOCKING, (req, out, content) -> new BluetoothApiHandler((FullHttpRequest) req, out, content),
+				Constants.LOCAL_API_MAX_PROXY_BODY_BYTES);
+		prefix("/v2/log", Mode.BLOCKING, LogApiHandler::new, Constants.LOCAL_API_MAX_BODY_BYTES);
+		prefix("/v2/commandline", Mode.BLOCKING, CommandLineApiHandler::new, Constants.LOCAL_API_MAX_BODY_BYTES);
+		prefix("/v2/control/socket", Mode.CONTROL_SOCKET, null, Constants.LOCAL_API_MAX_BODY_BYTES);
+		prefix("/v2/message/socket", Mode.MESSAGE_SOCKET, null, Constants.LOCAL_API_MAX_BODY_BYTES);
+	}
+
+	private LocalApiRouter() {
+
+	}
+
+	private static void exact(String path, Mode mode, HandlerFactory factory) {
+		exact(path, mode, factory, Constants.LOCAL_API_MAX_BODY_BYTES);
+	}
+
+	private static void exact(String path, Mode mode, HandlerFactory factory, long maxBodyBytes) {
+		exactRoutes.put(path, new Route(mode, factory, maxBodyBytes));
+	}
+
+	private static void prefix(String path, Mode mode, HandlerFactory factory, long maxBodyBytes) {
+		Route route = new Route(mode, factory, maxBodyBytes);
+		prefixRoutes.put(path, route);
+		exactRoutes.putIfAbsent(path, route);
+	}
+
+	/**
+	 * Find the route of the request URI
+	 * Prefix routes match on path segment or query boundary, the longest prefix wins
+	 * @param String
+	 * @return Route or null if not found
+	 */
+	public static Route match(String uri) {
+		Route route = exactRoutes.get(uri);
+		if (route != null)
+			return route;
+
+		int length = uri.length();
+		int segments = 0;
+		for (int end = 1; end <= length && segments < MAX_PREFIX_SEGMENTS; end++) {
+			char c = end < length ? uri.charAt(end) : '?';
+			if (c != '/' && c != '?')
+				continue;
+			segments++;
+			Route candidate = prefixRoutes.get(uri.substring(0, end));
+			if (candidate != null)
+				route = candidate;
+			if (c == '?')
+				break;
+		}
+		return route;
+	}
+}
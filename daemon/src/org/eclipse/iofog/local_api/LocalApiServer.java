@@ -12,17 +12,27 @@
  *******************************************************************************/
 package org.eclipse.iofog.local_api;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
 
+import org.eclipse.iofog.utils.Constants;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.SelfSignedCertificate;
@@ -35,14 +45,26 @@ import io.netty.handler.ssl.util.SelfSignedCertificate;
 public final class LocalApiServer {
 	private final String MODULE_NAME = "Local API";
 
-	EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-	EventLoopGroup workerGroup = new NioEventLoopGroup(10);
-
 	static final boolean SSL = System.getProperty("ssl") != null;
+	static final boolean EPOLL = System.getProperty("epoll") != null && Epoll.isAvailable();
 	static final int PORT = 54321;
+	static final int EVENT_LOOP_THREADS = Integer.getInteger("localapi.eventloops", Runtime.getRuntime().availableProcessors());
+	static final int BLOCKING_WORKER_THREADS = Integer.getInteger("localapi.workers", 2 * Runtime.getRuntime().availableProcessors());
+	static final boolean UNIX_SOCKET = System.getProperty("localapi.nounixsocket") == null && Epoll.isAvailable();
+	static final int ACCEPTOR_THREADS = EPOLL ? Integer.getInteger("localapi.acceptors", Runtime.getRuntime().availableProcessors()) : 1;
+	private static final WriteBufferWaterMark WRITE_BUFFER_WATER_MARK = new WriteBufferWaterMark(
+			Constants.LOCAL_API_WRITE_BUFFER_LOW_WATER_MARK, Constants.LOCAL_API_WRITE_BUFFER_HIGH_WATER_MARK);
+
+	EventLoopGroup bossGroup = EPOLL ? new EpollEventLoopGroup(ACCEPTOR_THREADS) : new NioEventLoopGroup(1);
+	EventLoopGroup workerGroup = EPOLL ? new EpollEventLoopGroup(EVENT_LOOP_THREADS) : new NioEventLoopGroup(EVENT_LOOP_THREADS);
+	EventLoopGroup unixSocketGroup = UNIX_SOCKET && !EPOLL ? new EpollEventLoopGroup(EVENT_LOOP_THREADS) : null;
+	Channel unixSocketChannel;
+	private static volatile boolean unixSocketBound;
 
 	/**
 	 * Create and start local api server
+	 * With epoll, port is bound once per acceptor thread using SO_REUSEPORT
+	 * and the same api is served on a unix domain socket for the local containers
 	 * @param None
 	 * @return void
 	 */
@@ -55,27 +77,91 @@ public final class LocalApiServer {
 		} else {
 			sslCtx = null;
 		}
+		LocalApiServerPipelineFactory pipelineFactory = new LocalApiServerPipelineFactory(sslCtx);
 		try{
 			ServerBootstrap b = new ServerBootstrap();
 			b.group(bossGroup, workerGroup)
-			.channel(NioServerSocketChannel.class)
-			.childHandler(new LocalApiServerPipelineFactory(sslCtx));
+			.channel(EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
+			.option(ChannelOption.SO_BACKLOG, Constants.LOCAL_API_BACKLOG)
+			.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+			.childOption(ChannelOption.TCP_NODELAY, true)
+			.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+			.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, WRITE_BUFFER_WATER_MARK)
+			.childHandler(pipelineFactory);
+			if (EPOLL)
+				b.option(EpollChannelOption.SO_REUSEPORT, true);
 
-			Channel ch = b.bind(PORT).sync().channel();	
+			Channel ch = b.bind(PORT).sync().channel();
+			for (int i = 1; i < ACCEPTOR_THREADS; i++)
+				b.bind(PORT).sync();
 			
-			LoggingService.logInfo(MODULE_NAME, "Local api server started at port: " + PORT + "\n");
+			LoggingService.logInfo(MODULE_NAME, "Local api server started at port: " + PORT + (EPOLL ? " (epoll)" : "") + "\n");
+
+			if (UNIX_SOCKET)
+				bindUnixSocket(pipelineFactory);
 			
-			ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-			scheduler.scheduleAtFixedRate(new ControlWebsocketWorker(), 10, 10, TimeUnit.SECONDS);
-			scheduler.scheduleAtFixedRate(new MessageWebsocketWorker(), 10, 10, TimeUnit.SECONDS);
 			ch.closeFuture().sync();
 		}finally{
 			bossGroup.shutdownGracefully();
 			workerGroup.shutdownGracefully();
+			closeUnixSocket();
+		}
+	}
+
+	/**
+	 * Whether the api is served on the unix domain socket, so it can be mounted into the containers
+	 * @param None
+	 * @return boolean
+	 */
+	public static boolean isUnixSocketBound() {
+		return unixSocketBound;
+	}
+
+	/**
+	 * Listen on the unix domain socket which is mounted into the containers
+	 * Failure is logged, the api stays available on the tcp port
+	 * @param LocalApiServerPipelineFactory
+	 * @return void
+	 */
+	private void bindUnixSocket(LocalApiServerPipelineFactory pipelineFactory) {
+		File socketFile = new File(Constants.LOCAL_API_SOCKET_DIR, Constants.LOCAL_API_SOCKET_NAME);
+		try {
+			socketFile.getParentFile().mkdirs();
+			Files.deleteIfExists(socketFile.toPath());
 
+			EventLoopGroup group = EPOLL ? workerGroup : unixSocketGroup;
+			ServerBootstrap b = new ServerBootstrap();
+			b.group(EPOLL ? bossGroup : group, group)
+			.channel(EpollServerDomainSocketChannel.class)
+			.option(ChannelOption.SO_BACKLOG, Constants.LOCAL_API_BACKLOG)
+			.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+			.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+			.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, WRITE_BUFFER_WATER_MARK)
+			.childHandler(pipelineFactory);
+
+			unixSocketChannel = b.bind(new DomainSocketAddress(socketFile)).sync().channel();
+			Files.setPosixFilePermissions(socketFile.toPath(), PosixFilePermissions.fromString("rw-rw-rw-"));
+			unixSocketBound = true;
+			LoggingService.logInfo(MODULE_NAME, "Local api server started at unix socket: " + socketFile.getPath() + "\n");
+		} catch (Exception e) {
+			LoggingService.logWarning(MODULE_NAME, "unable to listen on unix socket " + socketFile.getPath() + ": " + e.getMessage());
 		}
 	}
 
+	/**
+	 * Close the unix domain socket and remove the socket file
+	 * @param None
+	 * @return void
+	 */
+	private void closeUnixSocket() {
+		unixSocketBound = false;
+		if (unixSocketChannel != null)
+			unixSocketChannel.close();
+		if (unixSocketGroup != null)
+			unixSocketGroup.shutdownGracefully();
+		new File(Constants.LOCAL_API_SOCKET_DIR, Constants.LOCAL_API_SOCKET_NAME).delete();
+	}
+
 	/**
 	 * Stop local api server
 	 * @param None
@@ -84,6 +170,7 @@ public final class LocalApiServer {
 	protected void stop() throws Exception {
 		bossGroup.shutdownGracefully();
 		workerGroup.shutdownGracefully();
+		closeUnixSocket();
 		LoggingService.logInfo(MODULE_NAME, "Local api server stopped\n");
 	}
 }
@@ -14,23 +14,17 @@ package org.eclipse.iofog.local_api;
 
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.NetworkInterface;
-import java.util.Enumeration;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
-import org.eclipse.iofog.element.Element;
 import org.eclipse.iofog.element.ElementManager;
-import org.eclipse.iofog.utils.configuration.Configuration;
+import org.eclipse.iofog.utils.Constants;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -38,12 +32,9 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
-import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
-import io.netty.handler.codec.http.LastHttpContent;
-import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.util.CharsetUtil;
 import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.Future;
@@ -61,19 +52,22 @@ public class LocalApiServerHandler extends SimpleChannelInboundHandler<Object>{
 	private final String MODULE_NAME = "Local API";
 
 	private HttpRequest request;
-	private ByteArrayOutputStream baos;
-	private byte[] content;
+	private ByteBuf content;
+
+	private long requestSequence;
+	private long responseSequence;
+	private final Map<Long, FullHttpResponse> pendingResponses = new HashMap<>();
 
 	private final EventExecutorGroup executor;
 
 	public LocalApiServerHandler(EventExecutorGroup executor) {
-		super(false);
+		super(true);
 		this.executor = executor;
 	}
 
 	/**
 	 * Method to be called on channel initializing
-	 * Can take requests as HttpRequest or Websocket frame
+	 * Websocket frames are handled by WebsocketFrameHandler after the handshake
 	 * @param ChannelHandlerContext, Object
 	 * @return void
 	 */
@@ -81,53 +75,16 @@ public class LocalApiServerHandler extends SimpleChannelInboundHandler<Object>{
 	public void channelRead0(ChannelHandlerContext ctx, Object msg){
 		try {
 			if (msg instanceof FullHttpRequest) {
-				// full request
 				FullHttpRequest request = (FullHttpRequest) msg;
 				this.request = request;
-				ByteBuf content = request.content();
-				this.content = new byte[content.readableBytes()];
-				content.readBytes(this.content);
+				this.content = request.content();
 				handleHttpRequest(ctx);
-				return;
-			} else if (msg instanceof HttpRequest) {
-				// chunked request
-				if (this.baos == null)
-					this.baos = new ByteArrayOutputStream();
-				request = (HttpRequest) msg;
-			} else if (msg instanceof WebSocketFrame) {
-				String mapName = findContextMapName(ctx);
-				if (mapName != null && mapName.equals("control")) {
-					ControlWebsocketHandler controlSocket = new ControlWebsocketHandler();
-					controlSocket.handleWebSocketFrame(ctx, (WebSocketFrame) msg);
-				} else if (mapName != null && mapName.equals("message")) {
-					MessageWebsocketHandler messageSocket = new MessageWebsocketHandler();
-					messageSocket.handleWebSocketFrame(ctx, (WebSocketFrame) msg);
-				} else {
-					LoggingService.logWarning(MODULE_NAME, "Cannot initiate real-time service: Context not found");
-				}
-			} else if (msg instanceof HttpContent) {
-				HttpContent httpContent = (HttpContent) msg;
-				ByteBuf content = httpContent.content();
-				if (content.isReadable()) {
-					try {
-						content.readBytes(this.baos, content.readableBytes());
-					} catch (IOException e) {
-						String errorMsg = "Out of memory";
-						LoggingService.logWarning(MODULE_NAME, errorMsg);
-						ByteBuf	errorMsgBytes = ctx.alloc().buffer();
-						errorMsgBytes.writeBytes(errorMsg.getBytes());
-						sendHttpResponse(ctx, request, new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.NOT_FOUND, errorMsgBytes));
-						return;
-					}
-				}
-
-				if (msg instanceof LastHttpContent) {		// last chunk
-					this.content = baos.toByteArray();
-					handleHttpRequest(ctx);
-				}
 			}
 		} catch (Exception e) {
 			LoggingService.logWarning(MODULE_NAME, "Failed to initialize channel for the request: " + e.getMessage());
+		} finally {
+			this.request = null;
+			this.content = null;
 		}
 	}
 
@@ -139,109 +96,56 @@ public class LocalApiServerHandler extends SimpleChannelInboundHandler<Object>{
 	 */
 	private void handleHttpRequest(ChannelHandlerContext ctx) throws Exception {
 		String remoteIpAddress = getRemoteIP(ctx);
-		List<Element> elements = ElementManager.getInstance().getElements();
-		boolean found = false;
-		for(Element e: elements){
-			if(e.getContainerIpAddress() != null && e.getContainerIpAddress().equals(remoteIpAddress)) {
-				found = true; 
-				break;
-			}
-		}
+		boolean found = ElementManager.getInstance().getElementByIpAddress(remoteIpAddress) != null
+				|| LocalApi.getInstance().getLocalIpAddress().equals(remoteIpAddress)
+				|| remoteIpAddress.equals("127.0.0.1") || remoteIpAddress.equals("0.0.0.0");
 
-		if(getLocalIp().equals(remoteIpAddress) || remoteIpAddress.equals("127.0.0.1") || remoteIpAddress.equals("0.0.0.0")) {
-			found = true;
-		}
-		
 		//To be removed later
 		found = true;
 		//To be removed later
 
-		if(!found){
-			String errorMsg = "IP address " + remoteIpAddress + " not found as registered\n";
-			LoggingService.logWarning(MODULE_NAME, errorMsg);
-			ByteBuf	errorMsgBytes = ctx.alloc().buffer();
-			errorMsgBytes.writeBytes(errorMsg.getBytes());
-			sendHttpResponse(ctx, request, new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.NOT_FOUND, errorMsgBytes));
-			return;
-		}
-
-		if (request.getUri().equals("/v2/config/get")) {
-			Callable<? extends Object> callable = new GetConfigurationHandler(request, ctx.alloc().buffer(), content);
-			runTask(callable, ctx, request);
+		LocalApiRouter.Route route = LocalApiRouter.match(request.getUri());
+		if (found && route != null && route.getMode() == LocalApiRouter.Mode.CONTROL_SOCKET) {
+			ControlWebsocketHandler controlSocket = new ControlWebsocketHandler();
+			controlSocket.handle(ctx, request);
 			return;
 		}
-
-		if (request.getUri().equals("/v2/messages/next")) {
-			Callable<? extends Object> callable = new MessageReceiverHandler(request, ctx.alloc().buffer(), content);
-			runTask(callable, ctx, request);
+		if (found && route != null && route.getMode() == LocalApiRouter.Mode.MESSAGE_SOCKET) {
+			MessageWebsocketHandler messageSocket = new MessageWebsocketHandler(executor.next());
+			messageSocket.handle(ctx, request);
 			return;
 		}
 
-		if (request.getUri().equals("/v2/messages/new")) {
-			Callable<? extends Object> callable = new MessageSenderHandler(request, ctx.alloc().buffer(), content);
-			runTask(callable, ctx, request);
-			return;
-		}
+		long sequence = requestSequence++;
+		boolean keepAlive = HttpHeaders.isKeepAlive(request);
+		if (requestSequence - responseSequence >= Constants.LOCAL_API_MAX_PIPELINED_REQUESTS)
+			ctx.channel().config().setAutoRead(false);
 
-		if (request.getUri().equals("/v2/messages/query")) {
-			Callable<? extends Object> callable = new QueryMessageReceiverHandler(request, ctx.alloc().buffer(), content);
-			runTask(callable, ctx, request);
-			return;
-		}
-
-		if (request.getUri().startsWith("/v2/restblue")) {
-			Callable<? extends Object> callable = new BluetoothApiHandler((FullHttpRequest) request, ctx.alloc().buffer(), content); 
-			runTask(callable, ctx, request);
-			return;
-		}
-
-		if (request.getUri().startsWith("/v2/log")) {
-			Callable<? extends Object> callable = new LogApiHandler(request, ctx.alloc().buffer(), content); 
-			runTask(callable, ctx, request);
+		if(!found){
+			String errorMsg = "IP address " + remoteIpAddress + " not found as registered\n";
+			LoggingService.logWarning(MODULE_NAME, errorMsg);
+			sendErrorResponse(ctx, sequence, keepAlive, HttpResponseStatus.NOT_FOUND, errorMsg);
 			return;
 		}
 
-		if (request.getUri().startsWith("/v2/commandline")) {
-			Callable<? extends Object> callable = new CommandLineApiHandler(request, ctx.alloc().buffer(), content); 
-			runTask(callable, ctx, request);
+		if (route == null) {
+			LoggingService.logWarning(MODULE_NAME, "Error: Request not found");
+			sendErrorResponse(ctx, sequence, keepAlive, HttpResponseStatus.NOT_FOUND, " Request not found ");
 			return;
 		}
 
-		String uri = request.getUri();
-		uri = uri.substring(1);
-		String[] tokens = uri.split("/");
-		if(tokens.length >= 3){
-			String url = "/"+tokens[0]+"/"+tokens[1]+"/"+tokens[2];
-
-			if (url.equals("/v2/control/socket")) {
-				ControlWebsocketHandler controlSocket = new ControlWebsocketHandler();
-				controlSocket.handle(ctx, request);
-				return;
-			}
-
-			if (url.equals("/v2/message/socket")) {
-				MessageWebsocketHandler messageSocket = new MessageWebsocketHandler();
-				messageSocket.handle(ctx, request);
-				return;
-			}
+		// every sequence must get a response, otherwise the later pipelined responses wait forever
+		ByteBuf outputBuffer = null;
+		try {
+			outputBuffer = ctx.alloc().buffer();
+			Callable<? extends Object> callable = route.getFactory().create(request, outputBuffer, content);
+			if (route.getMode() == LocalApiRouter.Mode.INLINE)
+				runInline(callable, ctx, sequence, keepAlive, outputBuffer);
+			else
+				runTask(callable, ctx, sequence, keepAlive, outputBuffer);
+		} catch (Exception e) {
+			handleFailure(ctx, sequence, keepAlive, outputBuffer, e);
 		}
-
-		LoggingService.logWarning(MODULE_NAME, "Error: Request not found");
-		ByteBuf	errorMsgBytes = ctx.alloc().buffer();
-		String errorMsg = " Request not found ";
-		errorMsgBytes.writeBytes(errorMsg.getBytes());
-		sendHttpResponse(ctx, request, new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.NOT_FOUND, errorMsgBytes));
-		return;
-
-	}
-
-	private String findContextMapName(ChannelHandlerContext ctx) throws Exception{
-		if (WebsocketUtil.hasContextInMap(ctx, WebSocketMap.controlWebsocketMap))
-			return "control";
-		else if (WebsocketUtil.hasContextInMap(ctx, WebSocketMap.messageWebsocketMap))
-			return "message";
-		else 
-			return null;
 	}
 
 	/**
@@ -255,79 +159,137 @@ public class LocalApiServerHandler extends SimpleChannelInboundHandler<Object>{
 	}
 
 	/**
-	 * Helper for request thread
-	 * @param Callable, ChannelHandlerContext, FullHttpRequest
+	 * Release responses which are waiting for the earlier pipelined requests
+	 * @param ChannelHandlerContext
 	 * @return void
 	 */
-	private void runTask(Callable<? extends Object> callable, ChannelHandlerContext ctx, HttpRequest req) {
-		final Future<? extends Object> future = executor.submit(callable);
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		for (FullHttpResponse res : pendingResponses.values())
+			res.release();
+		pendingResponses.clear();
+		super.channelInactive(ctx);
+	}
+
+	/**
+	 * Helper for non-blocking requests, runs on the event loop of the channel
+	 * @param Callable, ChannelHandlerContext, long, boolean, ByteBuf
+	 * @return void
+	 */
+	private void runInline(Callable<? extends Object> callable, ChannelHandlerContext ctx, long sequence, boolean keepAlive,
+			ByteBuf outputBuffer) {
+		FullHttpResponse res;
+		try {
+			res = (FullHttpResponse) callable.call();
+		} catch (Exception e) {
+			handleFailure(ctx, sequence, keepAlive, outputBuffer, e);
+			return;
+		}
+		sendHttpResponse(ctx, sequence, keepAlive, res);
+	}
+
+	/**
+	 * Helper for blocking requests, runs on the worker thread pool
+	 * @param Callable, ChannelHandlerContext, long, boolean, ByteBuf
+	 * @return void
+	 */
+	private void runTask(Callable<? extends Object> callable, ChannelHandlerContext ctx, long sequence, boolean keepAlive,
+			ByteBuf outputBuffer) {
+		final ByteBuf content = this.content.retain();
+		final Future<? extends Object> future;
+		try {
+			future = executor.submit(callable);
+		} catch (RuntimeException e) {
+			content.release();
+			throw e;
+		}
 		future.addListener(new GenericFutureListener<Future<Object>>() {
 			public void operationComplete(Future<Object> future)
 					throws Exception {
+				content.release();
 				if (future.isSuccess()) {
-					sendHttpResponse(ctx, req, (FullHttpResponse)future.get());
+					sendHttpResponse(ctx, sequence, keepAlive, (FullHttpResponse) future.get());
 				} else {
-					ctx.fireExceptionCaught(future.cause());
-					ctx.close();
+					handleFailure(ctx, sequence, keepAlive, outputBuffer, future.cause());
 				}
 			}
 		});
 	}
 
+	/**
+	 * Answer the failed request with 500, the connection is kept open
+	 * @param ChannelHandlerContext, long, boolean, ByteBuf, Throwable
+	 * @return void
+	 */
+	private void handleFailure(ChannelHandlerContext ctx, long sequence, boolean keepAlive, ByteBuf outputBuffer, Throwable cause) {
+		if (outputBuffer != null && outputBuffer.refCnt() > 0)
+			outputBuffer.release();
+		String errorMsg = " Request failed " + cause.getMessage();
+		LoggingService.logWarning(MODULE_NAME, errorMsg);
+		sendErrorResponse(ctx, sequence, keepAlive, HttpResponseStatus.INTERNAL_SERVER_ERROR, errorMsg);
+	}
+
+	/**
+	 * Send the error message with the given status
+	 * @param ChannelHandlerContext, long, boolean, HttpResponseStatus, String
+	 * @return void
+	 */
+	private void sendErrorResponse(ChannelHandlerContext ctx, long sequence, boolean keepAlive, HttpResponseStatus status,
+			String errorMsg) {
+		ByteBuf errorMsgBytes = ctx.alloc().buffer();
+		errorMsgBytes.writeBytes(errorMsg.getBytes(CharsetUtil.UTF_8));
+		sendHttpResponse(ctx, sequence, keepAlive, new DefaultFullHttpResponse(HTTP_1_1, status, errorMsgBytes));
+	}
+
 	/**
 	 * Provide the response as per the requests
-	 * @param ChannelHandlerContext, FullHttpRequest, FullHttpResponse
+	 * Responses are written in the order of the requests, so the response
+	 * of a pipelined request waits until the earlier ones are written.
+	 * Every response has Content-Length and the connection is kept open
+	 * unless the client asked to close it.
+	 * @param ChannelHandlerContext, long, boolean, FullHttpResponse
 	 * @return void
 	 */
-	private static void sendHttpResponse(ChannelHandlerContext ctx, HttpRequest req, FullHttpResponse res) throws Exception {
-		if (res.getStatus().code() != 200) {
-			ByteBuf buf = Unpooled.copiedBuffer(res.getStatus().toString(), CharsetUtil.UTF_8);
-			res.content().writeBytes(buf);
-			buf.release();
-			HttpHeaders.setContentLength(res, res.content().readableBytes());
+	private void sendHttpResponse(ChannelHandlerContext ctx, long sequence, boolean keepAlive, FullHttpResponse res) {
+		if (!ctx.executor().inEventLoop()) {
+			ctx.executor().execute(() -> sendHttpResponse(ctx, sequence, keepAlive, res));
+			return;
 		}
 
-		ChannelFuture f = ctx.channel().writeAndFlush(res);
-		if (!HttpHeaders.isKeepAlive(req) || res.getStatus().code() != 200) {
-			f.addListener(ChannelFutureListener.CLOSE);
+		if (res.getStatus().code() != 200)
+			res.content().writeBytes(res.getStatus().toString().getBytes(CharsetUtil.UTF_8));
+		HttpHeaders.setContentLength(res, res.content().readableBytes());
+		HttpHeaders.setKeepAlive(res, keepAlive);
+		pendingResponses.put(sequence, res);
+
+		FullHttpResponse next;
+		boolean written = false;
+		while ((next = pendingResponses.remove(responseSequence)) != null) {
+			responseSequence++;
+			ChannelFuture f = ctx.write(next);
+			if (!HttpHeaders.isKeepAlive(next))
+				f.addListener(ChannelFutureListener.CLOSE);
+			written = true;
 		}
+		if (written)
+			ctx.flush();
+
+		if (!ctx.channel().config().isAutoRead()
+				&& requestSequence - responseSequence < Constants.LOCAL_API_MAX_PIPELINED_REQUESTS)
+			ctx.channel().config().setAutoRead(true);
 	}
 
 	/**
 	 * Return the client IP address in the request channel
+	 * Client on the unix domain socket is local
 	 * @param ChannelHandlerContext
 	 * @return String
 	 */
 	private String getRemoteIP(ChannelHandlerContext ctx) {
+		if (!(ctx.channel().remoteAddress() instanceof InetSocketAddress))
+			return "127.0.0.1";
 		InetSocketAddress socketAddress = (InetSocketAddress) ctx.channel().remoteAddress();
 		InetAddress inetaddress = socketAddress.getAddress();
 		return inetaddress.getHostAddress();
 	}
-
-	/**
-	 * Return the local host IP address 
-	 * @param none
-	 * @return String
-	 */
-	public String getLocalIp() throws Exception {
-		InetAddress address = null;
-		try {
-			Enumeration<NetworkInterface> networkInterfaces = NetworkInterface.getNetworkInterfaces();
-			while (networkInterfaces.hasMoreElements()) {
-				NetworkInterface networkInterface = networkInterfaces.nextElement();
-				if (networkInterface.getName().equals(Configuration.getNetworkInterface())) {
-					Enumeration<InetAddress> ipAddresses = networkInterface.getInetAddresses();
-					while (ipAddresses.hasMoreElements()) {
-						address = ipAddresses.nextElement();
-						if (address instanceof Inet4Address) {
-							return address.getHostAddress();
-						}
-					}
-				}
-			}
-		} catch (Exception e) {
-			LoggingService.logWarning(MODULE_NAME, " Problem retrieving local ip " + e.getMessage());
-		}
-		return "127.0.0.1";
-	}
-}
\ No newline at end of file
+}
@@ -12,11 +12,14 @@
  *******************************************************************************/
 package org.eclipse.iofog.local_api;
 
+import org.eclipse.iofog.utils.Constants;
+
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.concurrent.DefaultEventExecutorGroup;
 import io.netty.util.concurrent.EventExecutorGroup;
@@ -27,28 +30,30 @@ import io.netty.util.concurrent.EventExecutorGroup;
  * @author ashita
  * @since 2016
  */
-public class LocalApiServerPipelineFactory extends ChannelInitializer<SocketChannel>{
+public class LocalApiServerPipelineFactory extends ChannelInitializer<Channel>{
 	private final SslContext sslCtx;
 	private final EventExecutorGroup executor;
 	
 	public LocalApiServerPipelineFactory(SslContext sslCtx) {
 		this.sslCtx = sslCtx;
-		this.executor = new DefaultEventExecutorGroup(10);
+		this.executor = new DefaultEventExecutorGroup(LocalApiServer.BLOCKING_WORKER_THREADS);
 	}
 	
 	/**
 	 * Initialize channel for communication and assign handler
-	 * @param SocketChannel
+	 * @param Channel - tcp or unix domain socket channel
 	 * @return void
 	 */
-	public void initChannel(SocketChannel ch) throws Exception {
+	public void initChannel(Channel ch) throws Exception {
 		ChannelPipeline pipeline = ch.pipeline();
 		if (sslCtx != null) {
 			pipeline.addLast(sslCtx.newHandler(ch.alloc()));
 		}
 		pipeline.addLast(new HttpServerCodec());
-//		pipeline.addLast(new HttpRequestDecoder(4 * Constants.KiB, 64 * Constants.KiB, 2 * Constants.MiB));
-		pipeline.addLast(new HttpObjectAggregator(Integer.MAX_VALUE));
+		pipeline.addLast(new RequestBodyLimitHandler());
+		pipeline.addLast(new HttpObjectAggregator(RequestBodyLimitHandler.getMaxLimit()));
+		if (Constants.LOCAL_API_COMPRESSION)
+			pipeline.addLast(new WebSocketServerExtensionHandler(new WebsocketCompressionHandshaker()));
 		pipeline.addLast(new LocalApiServerHandler(executor));	
 	}
 }	
\ No newline at end of file
@@ -16,7 +16,7 @@ import static io.netty.handler.codec.http.HttpMethod.POST;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
-import java.io.StringReader;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.Callable;
 
@@ -29,6 +29,7 @@ import javax.json.JsonReader;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -40,9 +41,9 @@ public class LogApiHandler implements Callable<Object> {
 
 	private final HttpRequest req;
 	private ByteBuf outputBuffer;
-	private final byte[] content;
+	private final ByteBuf content;
 
-	public LogApiHandler(HttpRequest request, ByteBuf outputBuffer, byte[] content) {
+	public LogApiHandler(HttpRequest request, ByteBuf outputBuffer, ByteBuf content) {
 		this.req = request;
 		this.outputBuffer = outputBuffer;
 		this.content = content;
@@ -54,7 +55,7 @@ public class LogApiHandler implements Callable<Object> {
 
 		if (req.getMethod() != POST) {
 			LoggingService.logWarning(MODULE_NAME, "Request method not allowed");
-			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED);
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED, outputBuffer);
 		}
 
 		if (!(headers.get(HttpHeaders.Names.CONTENT_TYPE).trim().split(";")[0].equalsIgnoreCase("application/json"))) {
@@ -65,8 +66,7 @@ public class LogApiHandler implements Callable<Object> {
 		}
 
 		try {
-			String msgString = new String(content, StandardCharsets.UTF_8);
-			JsonReader reader = Json.createReader(new StringReader(msgString));
+			JsonReader reader = Json.createReader(new InputStreamReader(new ByteBufInputStream(content.duplicate()), StandardCharsets.UTF_8));
 			JsonObject jsonObject = reader.readObject();
 
 			String logMessage = jsonObject.getString("message");
@@ -16,8 +16,9 @@ import static io.netty.handler.codec.http.HttpMethod.POST;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
-import java.io.StringReader;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -30,9 +31,11 @@ import javax.json.JsonReader;
 
 import org.eclipse.iofog.message_bus.Message;
 import org.eclipse.iofog.message_bus.MessageBusUtil;
+import org.eclipse.iofog.message_bus.MessageLease;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -51,9 +54,9 @@ public class MessageReceiverHandler implements Callable<Object> {
 
 	private final HttpRequest req;
 	private ByteBuf outputBuffer;
-	private final byte[] content;
+	private final ByteBuf content;
 
-	public MessageReceiverHandler(HttpRequest req, ByteBuf outputBuffer, byte[] content) {
+	public MessageReceiverHandler(HttpRequest req, ByteBuf outputBuffer, ByteBuf content) {
 		this.req = req;
 		this.outputBuffer = outputBuffer;
 		this.content = content;
@@ -71,7 +74,7 @@ public class MessageReceiverHandler implements Callable<Object> {
 
 		if (req.getMethod() != POST) {
 			LoggingService.logWarning(MODULE_NAME, "Request method not allowed");
-			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED);
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED, outputBuffer);
 		}
 
 		if (!(headers.get(HttpHeaders.Names.CONTENT_TYPE).trim().split(";")[0].equalsIgnoreCase("application/json"))) {
@@ -81,8 +84,7 @@ public class MessageReceiverHandler implements Callable<Object> {
 			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.BAD_REQUEST, outputBuffer);
 		}
 
-		String requestBody = new String(content, StandardCharsets.UTF_8);
-		JsonReader reader = Json.createReader(new StringReader(requestBody));
+		JsonReader reader = Json.createReader(new InputStreamReader(new ByteBufInputStream(content.duplicate()), StandardCharsets.UTF_8));
 		JsonObject jsonObject = reader.readObject();
 
 		try {
@@ -101,7 +103,18 @@ public class MessageReceiverHandler implements Callable<Object> {
 		JsonArrayBuilder messagesArray = factory.createArrayBuilder();
 
 		MessageBusUtil bus = new MessageBusUtil();
-		List<Message> messageList = bus.getMessages(receiverId);
+		if (jsonObject.containsKey("leaseids"))
+			bus.acknowledgeLeases(receiverId, MessageAckHandler.getLeaseIds(jsonObject));
+
+		List<Message> messageList;
+		String leaseId = null;
+		if (jsonObject.getBoolean("lease", false)) {
+			MessageLease lease = bus.leaseMessages(receiverId);
+			messageList = lease == null ? Collections.emptyList() : lease.getMessages();
+			leaseId = lease == null ? null : lease.getId();
+		} else {
+			messageList = bus.getMessages(receiverId);
+		}
 
 		for (Message msg : messageList) {
 			JsonObject msgJson = msg.toJson();
@@ -109,6 +122,8 @@ public class MessageReceiverHandler implements Callable<Object> {
 		}
 		builder.add("status", "okay");
 		builder.add("count", messageList.size());
+		if (leaseId != null)
+			builder.add("leaseid", leaseId);
 		builder.add("messages", messagesArray);
 
 		String result = builder.build().toString();
@@ -130,6 +145,13 @@ public class MessageReceiverHandler implements Callable<Object> {
 			throw new Exception(" Id not found ");
 		if (jsonObject.getString("id").equals(null) || jsonObject.getString("id").trim().equals(""))
 			throw new Exception(" Id value not found ");
+		if (jsonObject.containsKey("leaseids")) {
+			try {
+				MessageAckHandler.getLeaseIds(jsonObject);
+			} catch (Exception e) {
+				throw new Exception(" Invalid value of lease ids ");
+			}
+		}
 	}
 
 	/**
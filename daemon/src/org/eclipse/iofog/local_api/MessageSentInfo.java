@@ -14,6 +14,8 @@ package org.eclipse.iofog.local_api;
 
 import org.eclipse.iofog.message_bus.Message;
 
+import io.netty.util.Timeout;
+
 /**
  * Unacknowledged message with the try count.
  * @author ashita
@@ -23,8 +25,7 @@ public class MessageSentInfo {
 	Message message;
 	int sendTryCount = 0;
 	long timeMillis;
-	
-	
+	Timeout retransmit;
 
 	MessageSentInfo(Message message, int count, long timeMillis){
 		this.message = message;
@@ -76,4 +77,16 @@ public class MessageSentInfo {
 		this.sendTryCount = sendTryCount;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Get pending retransmission of the message
+	 * @param none
+	 * @return Timeout
+	 */
+	public Timeout getRetransmit() {
+		return retransmit;
+	}
+
+	public void setRetransmit(Timeout retransmit) {
+		this.retransmit = retransmit;
+	}
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import static io.netty.handler.codec.http.HttpMethod.GET;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+import java.util.concurrent.Callable;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+
+import org.eclipse.iofog.message_bus.MessageBusStatus;
+import org.eclipse.iofog.status_reporter.StatusReporter;
+import org.eclipse.iofog.utils.logging.LoggingService;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * Handler to get message rates and per route latencies of the message bus.
+ * Latencies are in microseconds, measured from publish.
+ *
+ * @author ashita
+ * @since 2016
+ */
+public class MessageStatsHandler implements Callable<Object> {
+
+	private final String MODULE_NAME = "Local API";
+
+	private final HttpRequest req;
+	private ByteBuf outputBuffer;
+
+	public MessageStatsHandler(HttpRequest req, ByteBuf outputBuffer) {
+		this.req = req;
+		this.outputBuffer = outputBuffer;
+	}
+
+	/**
+	 * Handler method to get the message bus statistics
+	 *
+	 * @param None
+	 * @return Object
+	 */
+	public Object handleMessageStatsRequest() {
+		if (req.getMethod() != GET) {
+			LoggingService.logWarning(MODULE_NAME, "Request method not allowed");
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED, outputBuffer);
+		}
+
+		MessageBusStatus status = StatusReporter.getMessageBusStatus();
+		JsonObjectBuilder rates = Json.createObjectBuilder()
+				.add("1s", status.getMessageRate().getOneSecondRate())
+				.add("1m", status.getMessageRate().getOneMinuteRate())
+				.add("5m", status.getMessageRate().getFiveMinuteRate());
+		JsonArrayBuilder routes = Json.createArrayBuilder();
+		status.getRouteLatencies().forEach(routeLatency -> routes.add(routeLatency.toJson()));
+
+		JsonObjectBuilder builder = Json.createObjectBuilder();
+		builder.add("status", "okay");
+		builder.add("processedmessages", status.getProcessedMessages());
+		builder.add("messagerates", rates);
+		builder.add("routes", routes);
+
+		String result = builder.build().toString();
+		outputBuffer.writeBytes(result.getBytes());
+		FullHttpResponse res = new DefaultFullHttpResponse(HTTP_1_1, OK, outputBuffer);
+		HttpHeaders.setContentLength(res, outputBuffer.readableBytes());
+		return res;
+	}
+
+	/**
+	 * Overriden method of the Callable interface which call the handler method
+	 *
+	 * @param None
+	 * @return Object
+	 */
+	@Override
+	public Object call() throws Exception {
+		return handleMessageStatsRequest();
+	}
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.iofog.message_bus.Message;
+import org.eclipse.iofog.message_bus.MessageBus;
+import org.eclipse.iofog.utils.Constants;
+
+/**
+ * Message websockets of a receiver element.
+ * A single websocket, or a consumer group of websockets opened with
+ * ?group=true which share the messages of the element: every message is
+ * delivered to one member, round-robin or to the member with the fewest
+ * messages in flight. Members which are congested are skipped and
+ * real-time receiving is paused only when all members are congested.
+ * Parts of a message group are pinned to one member chosen by the hash of
+ * the group, so parts released in sequence order stay in order. The pinned
+ * member changes only when members join or leave.
+ * @author ashita
+ * @since 2016
+ */
+public class MessageWebsocketGroup {
+	private static final boolean ROUND_ROBIN = "roundrobin".equalsIgnoreCase(Constants.LOCAL_API_GROUP_BALANCING);
+
+	private final String receiverId;
+	private final List<WebsocketConnection> members;
+	private final AtomicInteger next;
+	private final Set<MessageWindow> congestedWindows;
+	private boolean consumerGroup;
+	private boolean paused;
+
+	MessageWebsocketGroup(String receiverId) {
+		this.receiverId = receiverId;
+		this.members = new CopyOnWriteArrayList<>();
+		this.next = new AtomicInteger();
+		this.congestedWindows = new HashSet<>();
+	}
+
+	/**
+	 * Add the websocket
+	 * Websocket which is not a consumer group member replaces the current members,
+	 * so does the first member of a consumer group
+	 * @param WebsocketConnection, boolean
+	 * @return List<WebsocketConnection> - replaced websockets
+	 */
+	synchronized List<WebsocketConnection> add(WebsocketConnection connection, boolean consumerGroup) {
+		List<WebsocketConnection> replaced = new ArrayList<>();
+		if (!consumerGroup || !this.consumerGroup) {
+			replaced.addAll(members);
+			members.clear();
+			congestedWindows.clear();
+		}
+		this.consumerGroup = consumerGroup;
+		members.add(connection);
+		updateFlow();
+		return replaced;
+	}
+
+	/**
+	 * Remove the websocket
+	 * @param WebsocketConnection
+	 * @return boolean - true if the group is empty
+	 */
+	synchronized boolean remove(WebsocketConnection connection) {
+		members.remove(connection);
+		congestedWindows.remove(connection.getMessageWindow());
+		updateFlow();
+		return members.isEmpty();
+	}
+
+	public boolean isEmpty() {
+		return members.isEmpty();
+	}
+
+	public int size() {
+		return members.size();
+	}
+
+	/**
+	 * Choose the websocket for the message
+	 * @param Message
+	 * @return WebsocketConnection or null if the group is empty
+	 */
+	public WebsocketConnection select(Message message) {
+		Object[] current = members.toArray();
+		if (current.length == 0)
+			return null;
+		if (current.length == 1)
+			return (WebsocketConnection) current[0];
+		if (message.getMessageGroupId() != null) {
+			int hash = (message.getPublisher() + ":" + message.getMessageGroupId()).hashCode();
+			return (WebsocketConnection) current[Math.floorMod(hash, current.length)];
+		}
+
+		int start = Math.floorMod(next.getAndIncrement(), current.length);
+		WebsocketConnection selected = null;
+		long selectedLoad = Long.MAX_VALUE;
+		for (int i = 0; i < current.length; i++) {
+			WebsocketConnection connection = (WebsocketConnection) current[(start + i) % current.length];
+			MessageWindow window = connection.getMessageWindow();
+			long load = ROUND_ROBIN ? i : window.getLoad();
+			if (window.isCongested())
+				load += Integer.MAX_VALUE;
+			if (load < selectedLoad) {
+				selected = connection;
+				selectedLoad = load;
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Track congestion of the member windows
+	 * @param MessageWindow, boolean
+	 * @return void
+	 */
+	synchronized void setCongested(MessageWindow window, boolean congested) {
+		if (!congested) {
+			congestedWindows.remove(window);
+		} else if (members.stream().anyMatch(connection -> connection.getMessageWindow() == window)) {
+			congestedWindows.add(window);
+		}
+		updateFlow();
+	}
+
+	/**
+	 * Keep the messages in the bus queue while every member is congested
+	 * @param none
+	 * @return void
+	 */
+	private void updateFlow() {
+		boolean pause = !members.isEmpty() && congestedWindows.size() >= members.size();
+		if (pause == paused)
+			return;
+		paused = pause;
+		if (paused)
+			MessageBus.getInstance().pauseRealTimeReceiving(receiverId);
+		else
+			MessageBus.getInstance().resumeRealTimeReceiving(receiverId);
+	}
+}
@@ -14,18 +14,25 @@ package org.eclipse.iofog.local_api;
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.HOST;
 
-import java.util.Hashtable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import org.eclipse.iofog.local_api.WebsocketConnection.Type;
 import org.eclipse.iofog.message_bus.Message;
 import org.eclipse.iofog.message_bus.MessageBus;
 import org.eclipse.iofog.message_bus.MessageBusUtil;
+import org.eclipse.iofog.message_bus.RouteLatency.Stage;
+import org.eclipse.iofog.message_bus.SharedMemoryHandle;
 import org.eclipse.iofog.status_reporter.StatusReporter;
-import org.eclipse.iofog.utils.BytesUtil;
+import org.eclipse.iofog.utils.Constants;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
@@ -33,6 +40,7 @@ import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import io.netty.util.concurrent.EventExecutor;
 
 /**
  * Hadler for the real-time message websocket Open real-time message websocket
@@ -41,18 +49,29 @@ import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
  * @author ashita
  * @since 2016
  */
-public class MessageWebsocketHandler {
+public class MessageWebsocketHandler implements WebsocketFrameHandler.Role {
 
 	private static final Byte OPCODE_PING = 0x9;
 	private static final Byte OPCODE_PONG = 0xA;
 	private static final Byte OPCODE_ACK = 0xB;
 	private static final Byte OPCODE_MSG = 0xD;
 	private static final Byte OPCODE_RECEIPT = 0xE;
+	private static final byte ACK_CUMULATIVE = 1;
 
-	private final String MODULE_NAME = "Local API";
+	private static final String MODULE_NAME = "Local API";
 	private static final String WEBSOCKET_PATH = "/v2/message/socket";
 
 	private WebSocketServerHandshaker handshaker;
+	private boolean consumerGroup;
+	private final EventExecutor publishExecutor;
+
+	/**
+	 * @param EventExecutor - worker thread which publishes the messages of the websocket in order,
+	 *            publishing writes the message archive and must not run on the event loop
+	 */
+	public MessageWebsocketHandler(EventExecutor publishExecutor) {
+		this.publishExecutor = publishExecutor;
+	}
 
 	/**
 	 * Handler to open the websocket for the real-time message websocket
@@ -73,26 +92,57 @@ public class MessageWebsocketHandler {
 		} else {
 			publisherId = tokens[4].trim().split("\\?")[0];
 		}
+		List<String> group = new QueryStringDecoder(req.getUri()).parameters().get("group");
+		consumerGroup = group != null && "true".equalsIgnoreCase(group.get(0));
 
 		// Handshake
 		WebSocketServerHandshakerFactory wsFactory = new WebSocketServerHandshakerFactory(getWebSocketLocation(req),
-				null, true, Integer.MAX_VALUE);
+				null, true, (int) Constants.LOCAL_API_MAX_MESSAGE_BODY_BYTES);
 		handshaker = wsFactory.newHandshaker(req);
 		if (handshaker == null) {
 			WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
-		} else {
-			handshaker.handshake(ctx.channel(), req);
+			return;
 		}
-
-		Hashtable<String, ChannelHandlerContext> messageSocketMap = WebSocketMap.messageWebsocketMap;
-		messageSocketMap.put(publisherId, ctx);
-		StatusReporter.setLocalApiStatus().setOpenConfigSocketsCount(WebSocketMap.messageWebsocketMap.size());
-		MessageBus.getInstance().enableRealTimeReceiving(publisherId);
+		handshaker.handshake(ctx.channel(), req);
+		ctx.pipeline().replace(ctx.handler(), "websocket", new WebsocketFrameHandler(this, publisherId));
 
 		LoggingService.logInfo(MODULE_NAME, "Handshake end....");
 		return;
 	}
 
+	/**
+	 * Register the open message websocket of the container
+	 * and enable real-time receiving of its messages.
+	 * Websocket joins the consumer group of the container if it was opened 
+	 * with ?group=true, otherwise it replaces the open websockets.
+	 * Called once by the pipeline handler of the socket
+	 * 
+	 * @param ChannelHandlerContext,
+	 *            String
+	 * @return void
+	 */
+	@Override
+	public void register(ChannelHandlerContext ctx, String id) {
+		List<WebsocketConnection> replaced = new ArrayList<>();
+		WebSocketMap.addMessageWebsocket(id, ctx, consumerGroup, replaced);
+		for (WebsocketConnection connection : replaced)
+			connection.getContext().channel().close();
+		StatusReporter.setLocalApiStatus().setOpenMessageSocketsCount(WebSocketMap.getWebsocketsCount(Type.MESSAGE));
+		MessageBus.getInstance().enableRealTimeReceiving(id);
+	}
+
+	/**
+	 * Unregister the closed message websocket
+	 * Real-time receiving stays enabled if the container has other websockets
+	 * 
+	 * @param ChannelHandlerContext
+	 * @return void
+	 */
+	@Override
+	public void unregister(ChannelHandlerContext ctx) {
+		closeWebsocket(ctx);
+	}
+
 	/**
 	 * Handler for the real-time messages Receive ping and send pong Sending and
 	 * receiving real-time messages
@@ -101,6 +151,7 @@ public class MessageWebsocketHandler {
 	 *            WebSocketFrame
 	 * @return void
 	 */
+	@Override
 	public void handleWebSocketFrame(ChannelHandlerContext ctx, WebSocketFrame frame) throws Exception {
 
 		if (frame instanceof PingWebSocketFrame) {
@@ -108,11 +159,9 @@ public class MessageWebsocketHandler {
 			if (buffer.readableBytes() == 1) {
 				Byte opcode = buffer.readByte();
 				if (opcode == OPCODE_PING.intValue()) {
-					if (WebsocketUtil.hasContextInMap(ctx, WebSocketMap.messageWebsocketMap)) {
-						ByteBuf buffer1 = ctx.alloc().buffer();
-						buffer1.writeByte(OPCODE_PONG.intValue());
-						ctx.channel().writeAndFlush(new PongWebSocketFrame(buffer1));
-					}
+					ByteBuf buffer1 = ctx.alloc().buffer(1);
+					buffer1.writeByte(OPCODE_PONG.intValue());
+					ctx.channel().writeAndFlush(new PongWebSocketFrame(buffer1));
 				}
 			} else {
 				LoggingService.logInfo(MODULE_NAME, "Ping opcode not found");
@@ -127,56 +176,43 @@ public class MessageWebsocketHandler {
 				return;
 			}
 
-			byte[] byteArray = new byte[input.readableBytes()];
 			int readerIndex = input.readerIndex();
-			input.getBytes(readerIndex, byteArray);
-			Byte opcode = 0;
-
-			if(byteArray.length >= 1){
-				opcode = byteArray[0];
-			}else{
-				return;
-			}
+			byte opcode = input.getByte(readerIndex);
 
 			if (opcode == OPCODE_MSG.intValue()) {
-				if (byteArray.length >= 2) {
-					opcode = byteArray[0];
+				if (input.readableBytes() >= 5) {
 					Message message = null;
 
-					if (WebsocketUtil.hasContextInMap(ctx, WebSocketMap.messageWebsocketMap)) {
-
-						int totalMsgLength = BytesUtil.bytesToInteger(BytesUtil.copyOfRange(byteArray, 1, 5));
-						try {
-							message = new Message(BytesUtil.copyOfRange(byteArray, 5, totalMsgLength + 5));
-//							LoggingService.logInfo(MODULE_NAME, message.toString());
-						} catch (Exception e) {
-							LoggingService.logInfo(MODULE_NAME, "wrong message format  " + e.getMessage());
-							LoggingService.logInfo(MODULE_NAME, "Validation fail");
-						}
-
-						MessageBusUtil messageBus = new MessageBusUtil();
-						messageBus.publishMessage(message);
-
-						String messageId = message.getId();
-						Long msgTimestamp = message.getTimestamp();
-						ByteBuf buffer1 = ctx.alloc().buffer();
-
-						buffer1.writeByte(OPCODE_RECEIPT.intValue());
-
-						// send Length
-						int msgIdLength = messageId.length();
-						buffer1.writeByte(msgIdLength);
-						buffer1.writeByte(Long.BYTES);
-
-						// Send opcode, id and timestamp
-						buffer1.writeBytes(messageId.getBytes());
-						buffer1.writeBytes(BytesUtil.longToBytes(msgTimestamp));
-						ctx.channel().write(new BinaryWebSocketFrame(buffer1));
+					int totalMsgLength = input.getInt(readerIndex + 1);
+					if (totalMsgLength < 0 || totalMsgLength > input.readableBytes() - 5) {
+						LoggingService.logInfo(MODULE_NAME, "wrong message format, length " + totalMsgLength
+								+ " exceeds frame");
+						return;
+					}
+					try {
+						byte[] bytesMsg = new byte[totalMsgLength];
+						input.getBytes(readerIndex + 5, bytesMsg);
+						message = new Message(bytesMsg);
+					} catch (Exception e) {
+						LoggingService.logInfo(MODULE_NAME, "wrong message format  " + e.getMessage());
+						LoggingService.logInfo(MODULE_NAME, "Validation fail");
+						return;
 					}
+
+					Message received = message;
+					publishExecutor.execute(() -> publishMessage(ctx, received));
 					return;
 				}
 			} else if (opcode == OPCODE_ACK.intValue()) {
-				WebSocketMap.unackMessageSendingMap.remove(ctx);
+				WebsocketConnection connection = WebSocketMap.getConnection(ctx);
+				if (connection == null)
+					return;
+				for (MessageSentInfo sentInfo : acknowledge(connection.getMessageWindow(), input)) {
+					Message message = sentInfo.getMessage();
+					StatusReporter.getMessageBusStatus().recordLatency(message.getPublisher(),
+							connection.getId(), Stage.ACK, message.getPublishTime());
+					new MessageBusUtil().releaseSharedMemory(connection.getId(), SharedMemoryHandle.fromMessage(message));
+				}
 				return;
 			}
 			
@@ -185,53 +221,130 @@ public class MessageWebsocketHandler {
 
 		// Check for closing frame
 		if (frame instanceof CloseWebSocketFrame) {
-			ctx.channel().close();
-			MessageBus.getInstance()
-			.disableRealTimeReceiving(WebsocketUtil.getIdForWebsocket(ctx, WebSocketMap.messageWebsocketMap));
-			WebsocketUtil.removeWebsocketContextFromMap(ctx, WebSocketMap.messageWebsocketMap);
-			StatusReporter.setLocalApiStatus().setOpenConfigSocketsCount(WebSocketMap.messageWebsocketMap.size());
+			closeWebsocket(ctx);
 			return;
 		}
 	}
 
 	/**
-	 * Helper to send real-time messages
+	 * Publish the message received on the websocket and send its receipt
+	 * Runs on the publishing worker thread of the websocket
 	 * 
-	 * @param String,
+	 * @param ChannelHandlerContext,
 	 *            Message
 	 * @return void
 	 */
-	public void sendRealTimeMessage(String receiverId, Message message) {
-		ChannelHandlerContext ctx = null;
-		Hashtable<String, ChannelHandlerContext> messageSocketMap = WebSocketMap.messageWebsocketMap;
+	private void publishMessage(ChannelHandlerContext ctx, Message message) {
+		MessageBusUtil messageBus = new MessageBusUtil();
+		messageBus.publishMessage(message);
+
+		String messageId = message.getId();
+		Long msgTimestamp = message.getTimestamp();
+		ByteBuf buffer1 = ctx.alloc().buffer(3 + messageId.length() + Long.BYTES);
 
-		if (messageSocketMap != null && messageSocketMap.containsKey(receiverId)) {
-			ctx = messageSocketMap.get(receiverId);
-			WebSocketMap.unackMessageSendingMap.put(ctx, new MessageSentInfo(message, 1, System.currentTimeMillis()));
+		buffer1.writeByte(OPCODE_RECEIPT.intValue());
 
-			int totalMsgLength = 0;
+		// send Length
+		int msgIdLength = messageId.length();
+		buffer1.writeByte(msgIdLength);
+		buffer1.writeByte(Long.BYTES);
+
+		// Send opcode, id and timestamp
+		buffer1.writeBytes(messageId.getBytes());
+		buffer1.writeLong(msgTimestamp);
+		ctx.channel().writeAndFlush(new BinaryWebSocketFrame(buffer1));
+	}
 
-			byte[] bytesMsg = null;
-			try {
-				bytesMsg = message.getBytes();
-			} catch (Exception e) {
-				LoggingService.logWarning(MODULE_NAME, "Problem in retrieving the message");
+	/**
+	 * Acknowledge messages of the ack frame
+	 * [opcode] - oldest message in flight
+	 * [opcode][0][id length][id]... - listed messages
+	 * [opcode][1][id length][id] - message and all messages sent before it
+	 * 
+	 * @param MessageWindow,
+	 *            ByteBuf
+	 * @return List<MessageSentInfo>
+	 */
+	private List<MessageSentInfo> acknowledge(MessageWindow window, ByteBuf input) {
+		int index = input.readerIndex() + 1;
+		int end = input.writerIndex();
+		if (index >= end)
+			return window.acknowledgeOldest();
+
+		byte mode = input.getByte(index++);
+		List<String> messageIds = new ArrayList<>();
+		while (index < end) {
+			int idLength = input.getUnsignedByte(index++);
+			if (index + idLength > end) {
+				LoggingService.logInfo(MODULE_NAME, "wrong ack format");
+				break;
 			}
+			messageIds.add(input.toString(index, idLength, StandardCharsets.UTF_8));
+			index += idLength;
+		}
 
-			totalMsgLength = bytesMsg.length;
+		if (mode == ACK_CUMULATIVE && messageIds.size() == 1)
+			return window.acknowledgeUpTo(messageIds.get(0));
+		return window.acknowledge(messageIds);
+	}
+
+	/**
+	 * Helper to send real-time messages
+	 * Message waits in the window of the chosen websocket until it is acknowledged
+	 * 
+	 * @param String,
+	 *            Message
+	 * @return void
+	 */
+	public static void sendRealTimeMessage(String receiverId, Message message) {
+		MessageWebsocketGroup group = WebSocketMap.getMessageWebsockets(receiverId);
+		WebsocketConnection connection = group == null ? null : group.select(message);
 
-			ByteBuf buffer1 = ctx.alloc().buffer(totalMsgLength + 5);
-			// Send Opcode
-			buffer1.writeByte(OPCODE_MSG);
-			// Total Length
-			buffer1.writeBytes(BytesUtil.integerToBytes(totalMsgLength));
-			// Message
-			buffer1.writeBytes(bytesMsg);
-			ctx.channel().writeAndFlush(new BinaryWebSocketFrame(buffer1));
+		if (connection != null) {
+			connection.getMessageWindow().offer(message);
 		} else {
-			LoggingService.logWarning(MODULE_NAME, "No active real-time websocket found for " + receiverId);
+			LoggingService.logWarning(MODULE_NAME, "No active real-time websocket found for " + receiverId
+					+ ", message returned to the message bus");
+			MessageBus.getInstance().requeueMessages(receiverId, Collections.singletonList(message));
 		}
+	}
 
+	/**
+	 * Pass the messages taken back from a closed websocket to the other websockets 
+	 * of the container, or back to the message bus if there are none.
+	 * The messages are acknowledged on the bus already and must not be dropped
+	 * 
+	 * @param String,
+	 *            List<Message>
+	 * @return void
+	 */
+	static void redeliver(String receiverId, List<Message> messages) {
+		if (messages.isEmpty())
+			return;
+		if (WebSocketMap.getMessageWebsockets(receiverId) == null) {
+			MessageBus.getInstance().requeueMessages(receiverId, messages);
+			return;
+		}
+		for (Message message : messages)
+			sendRealTimeMessage(receiverId, message);
+	}
+
+	/**
+	 * Close the message websocket
+	 * Unacknowledged messages are passed to the other websockets of the container,
+	 * real-time receiving is disabled and they are returned to the message bus if there are none
+	 * 
+	 * @param ChannelHandlerContext
+	 * @return void
+	 */
+	static void closeWebsocket(ChannelHandlerContext ctx) {
+		WebsocketConnection connection = WebSocketMap.removeWebsocket(ctx);
+		if (connection != null) {
+			List<Message> unacknowledged = connection.getMessageWindow().close();
+			redeliver(connection.getId(), unacknowledged);
+		}
+		StatusReporter.setLocalApiStatus().setOpenMessageSocketsCount(WebSocketMap.getWebsocketsCount(Type.MESSAGE));
+		ctx.channel().close();
 	}
 
 	/**
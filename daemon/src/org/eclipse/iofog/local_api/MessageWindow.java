@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.iofog.message_bus.Message;
+import org.eclipse.iofog.message_bus.MessageBus;
+import org.eclipse.iofog.message_bus.RouteLatency.Stage;
+import org.eclipse.iofog.status_reporter.StatusReporter;
+import org.eclipse.iofog.utils.Constants;
+import org.eclipse.iofog.utils.logging.LoggingService;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+
+/**
+ * Sliding window of the real-time messages sent on a message websocket.
+ * At most LOCAL_API_MESSAGE_WINDOW messages wait for acknowledgement,
+ * next messages wait in the backlog until the window moves.
+ * Every message in flight has its own retransmit timer, the timeout 
+ * doubles on each try.
+ * Messages are handed off to the event loop of the channel, the window
+ * is only used there. Messages written in one run of the event loop
+ * are flushed together, at most LOCAL_API_MESSAGE_BATCH per flush.
+ * Nothing is written while the channel is not writable. The window is
+ * congested while the channel is not writable or the backlog is as long
+ * as the window, its group then pauses real-time receiving or passes
+ * next messages to the other websockets.
+ * Messages are acknowledged on the bus before they get here, so messages
+ * which do not fit in the backlog or arrive after the window is closed
+ * are passed on instead of dropped.
+ * @author ashita
+ * @since 2016
+ */
+public class MessageWindow {
+	private final String MODULE_NAME = "Local API";
+	private static final Byte OPCODE_MSG = 0xD;
+
+	private final ChannelHandlerContext ctx;
+	private final String receiverId;
+	private final MessageWebsocketGroup group;
+	private final LinkedHashMap<String, MessageSentInfo> inFlight;
+	private final ArrayDeque<Message> backlog;
+	private final Queue<Message> incoming;
+	private final AtomicInteger incomingCount;
+	private final AtomicBoolean drainScheduled;
+	private final AtomicInteger load;
+	private volatile boolean congested;
+	private boolean closed;
+
+	MessageWindow(ChannelHandlerContext ctx, String receiverId, MessageWebsocketGroup group) {
+		this.ctx = ctx;
+		this.receiverId = receiverId;
+		this.group = group;
+		this.inFlight = new LinkedHashMap<>();
+		this.backlog = new ArrayDeque<>();
+		this.incoming = new ConcurrentLinkedQueue<>();
+		this.incomingCount = new AtomicInteger();
+		this.drainScheduled = new AtomicBoolean();
+		this.load = new AtomicInteger();
+	}
+
+	/**
+	 * Pass the message to the event loop of the channel
+	 * Called by the message bus threads
+	 * @param Message
+	 * @return void
+	 */
+	public void offer(Message message) {
+		load.incrementAndGet();
+		incoming.add(message);
+		int pending = incomingCount.incrementAndGet();
+		long delay = Constants.LOCAL_API_MESSAGE_BATCH_DELAY_MICROS;
+		if (drainScheduled.compareAndSet(false, true)) {
+			if (delay > 0)
+				ctx.executor().schedule(this::drain, delay, TimeUnit.MICROSECONDS);
+			else
+				ctx.executor().execute(this::drain);
+		} else if (delay > 0 && pending == Constants.LOCAL_API_MESSAGE_BATCH) {
+			ctx.executor().execute(this::drain);
+		}
+	}
+
+	/**
+	 * Send handed off messages or keep them in the backlog if the window is full
+	 * Messages which do not fit in the backlog are returned to the message bus,
+	 * messages handed off after the window is closed go to the other websockets
+	 * @param none
+	 * @return void
+	 */
+	private void drain() {
+		drainScheduled.set(false);
+		int written = 0;
+		List<Message> overflow = new ArrayList<>();
+		List<Message> late = new ArrayList<>();
+		Message message;
+		while ((message = incoming.poll()) != null) {
+			incomingCount.decrementAndGet();
+			if (closed) {
+				late.add(message);
+				continue;
+			}
+			if (backlog.isEmpty() && canSend()) {
+				send(message);
+				if (++written % Constants.LOCAL_API_MESSAGE_BATCH == 0)
+					ctx.channel().flush();
+				continue;
+			}
+			if (backlog.size() >= Constants.LOCAL_API_MESSAGE_BACKLOG) {
+				load.decrementAndGet();
+				overflow.add(message);
+				continue;
+			}
+			backlog.addLast(message);
+		}
+		if (written % Constants.LOCAL_API_MESSAGE_BATCH != 0)
+			ctx.channel().flush();
+		if (!overflow.isEmpty()) {
+			LoggingService.logWarning(MODULE_NAME, "Real-time backlog of " + receiverId + " is full, returned "
+					+ overflow.size() + " messages to the message bus");
+			MessageBus.getInstance().requeueMessages(receiverId, overflow);
+		}
+		MessageWebsocketHandler.redeliver(receiverId, late);
+		updateFlow();
+	}
+
+	/**
+	 * Send the backlog when the channel is writable again
+	 * @param none
+	 * @return void
+	 */
+	public void writabilityChanged() {
+		if (closed)
+			return;
+		fill();
+		ctx.channel().flush();
+		updateFlow();
+	}
+
+	/**
+	 * Selective acknowledgement
+	 * @param Collection<String>
+	 * @return List<MessageSentInfo> - acknowledged messages
+	 */
+	public List<MessageSentInfo> acknowledge(Collection<String> messageIds) {
+		List<MessageSentInfo> acknowledged = new ArrayList<>();
+		for (String messageId : messageIds) {
+			MessageSentInfo sentInfo = inFlight.remove(messageId);
+			if (sentInfo != null)
+				acknowledged(sentInfo, acknowledged);
+		}
+		fill();
+		return acknowledged;
+	}
+
+	/**
+	 * Cumulative acknowledgement of the message and all messages sent before it
+	 * Unknown id acknowledges nothing
+	 * @param String
+	 * @return List<MessageSentInfo> - acknowledged messages
+	 */
+	public List<MessageSentInfo> acknowledgeUpTo(String messageId) {
+		List<MessageSentInfo> acknowledged = new ArrayList<>();
+		if (!inFlight.containsKey(messageId))
+			return acknowledged;
+		for (Iterator<MessageSentInfo> it = inFlight.values().iterator(); it.hasNext();) {
+			MessageSentInfo sentInfo = it.next();
+			it.remove();
+			acknowledged(sentInfo, acknowledged);
+			if (sentInfo.getMessage().getId().equals(messageId))
+				break;
+		}
+		fill();
+		return acknowledged;
+	}
+
+	/**
+	 * Acknowledgement without message id, for the oldest message in flight
+	 * @param none
+	 * @return List<MessageSentInfo> - acknowledged messages
+	 */
+	public List<MessageSentInfo> acknowledgeOldest() {
+		List<MessageSentInfo> acknowledged = new ArrayList<>();
+		Iterator<MessageSentInfo> it = inFlight.values().iterator();
+		if (it.hasNext()) {
+			MessageSentInfo sentInfo = it.next();
+			it.remove();
+			acknowledged(sentInfo, acknowledged);
+			fill();
+		}
+		return acknowledged;
+	}
+
+	/**
+	 * Number of messages handed off and not acknowledged yet
+	 * @param none
+	 * @return int
+	 */
+	public int getLoad() {
+		return load.get();
+	}
+
+	public boolean isCongested() {
+		return congested;
+	}
+
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+
+	public int getBacklogCount() {
+		return backlog.size();
+	}
+
+	/**
+	 * Stop sending and retransmitting
+	 * @param none
+	 * @return List<Message> - unacknowledged messages in sending order
+	 */
+	public List<Message> close() {
+		closed = true;
+		List<Message> unacknowledged = new ArrayList<>();
+		for (MessageSentInfo sentInfo : inFlight.values()) {
+			cancelRetransmit(sentInfo);
+			unacknowledged.add(sentInfo.getMessage());
+		}
+		unacknowledged.addAll(backlog);
+		Message message;
+		while ((message = incoming.poll()) != null)
+			unacknowledged.add(message);
+		incomingCount.set(0);
+		inFlight.clear();
+		backlog.clear();
+		load.set(0);
+		updateFlow();
+		return unacknowledged;
+	}
+
+	private void acknowledged(MessageSentInfo sentInfo, List<MessageSentInfo> acknowledged) {
+		load.decrementAndGet();
+		cancelRetransmit(sentInfo);
+		acknowledged.add(sentInfo);
+	}
+
+	private void cancelRetransmit(MessageSentInfo sentInfo) {
+		if (sentInfo.getRetransmit() != null)
+			sentInfo.getRetransmit().cancel();
+	}
+
+	private void fill() {
+		while (!closed && !backlog.isEmpty() && canSend())
+			send(backlog.pollFirst());
+		updateFlow();
+	}
+
+	private boolean canSend() {
+		return inFlight.size() < Constants.LOCAL_API_MESSAGE_WINDOW && ctx.channel().isWritable();
+	}
+
+	/**
+	 * Report congestion of the websocket to its group
+	 * @param none
+	 * @return void
+	 */
+	private void updateFlow() {
+		boolean congested = !closed
+				&& (!ctx.channel().isWritable() || backlog.size() >= Constants.LOCAL_API_MESSAGE_WINDOW);
+		if (congested == this.congested)
+			return;
+		this.congested = congested;
+		group.setCongested(this, congested);
+	}
+
+	private void send(Message message) {
+		MessageSentInfo sentInfo = new MessageSentInfo(message, 1, System.currentTimeMillis());
+		inFlight.put(message.getId(), sentInfo);
+		write(sentInfo);
+		scheduleRetransmit(sentInfo);
+	}
+
+	private void scheduleRetransmit(MessageSentInfo sentInfo) {
+		String messageId = sentInfo.getMessage().getId();
+		sentInfo.setRetransmit(WebsocketUtil.newAckTimeout(ctx, () -> retransmit(messageId),
+				WebsocketUtil.getAckTimeoutMillis(sentInfo.getSendTryCount())));
+	}
+
+	/**
+	 * Resend unacknowledged message
+	 * If tried LOCAL_API_MAX_SEND_TRIES times, close the websocket
+	 * @param String
+	 * @return void
+	 */
+	private void retransmit(String messageId) {
+		MessageSentInfo sentInfo = inFlight.get(messageId);
+		if (closed || sentInfo == null)
+			return;
+		if (sentInfo.getSendTryCount() < Constants.LOCAL_API_MAX_SEND_TRIES) {
+			sentInfo.setSendTryCount(sentInfo.getSendTryCount() + 1);
+			sentInfo.setTimeMillis(System.currentTimeMillis());
+			write(sentInfo);
+			ctx.channel().flush();
+			scheduleRetransmit(sentInfo);
+			return;
+		}
+		LoggingService.logWarning(MODULE_NAME, "Real-time message " + messageId + " is not acknowledged by " + receiverId + ", closing websocket");
+		MessageWebsocketHandler.closeWebsocket(ctx);
+	}
+
+	private void write(MessageSentInfo sentInfo) {
+		Message message = sentInfo.getMessage();
+		byte[] bytesMsg;
+		try {
+			bytesMsg = message.getBytes();
+		} catch (Exception e) {
+			LoggingService.logWarning(MODULE_NAME, "Problem in retrieving the message");
+			return;
+		}
+
+		ByteBuf buffer = ctx.alloc().buffer(bytesMsg.length + 5);
+		buffer.writeByte(OPCODE_MSG);
+		buffer.writeInt(bytesMsg.length);
+		buffer.writeBytes(bytesMsg);
+		if (sentInfo.getSendTryCount() > 1) {
+			ctx.channel().write(new BinaryWebSocketFrame(buffer));
+			return;
+		}
+		ctx.channel().write(new BinaryWebSocketFrame(buffer)).addListener(future -> {
+			if (future.isSuccess())
+				StatusReporter.getMessageBusStatus().recordLatency(message.getPublisher(), receiverId,
+						Stage.WRITE, message.getPublishTime());
+		});
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import static io.netty.handler.codec.http.HttpMethod.GET;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+
+import org.eclipse.iofog.status_reporter.StatusReporter;
+import org.eclipse.iofog.utils.logging.LoggingService;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * Handler to expose the daemon metrics in Prometheus text format.
+ * Metrics are served from the snapshot rendered by status reporter.
+ *
+ * @author ashita
+ * @since 2016
+ */
+public class MetricsHandler implements Callable<Object> {
+
+	private final String MODULE_NAME = "Local API";
+
+	private final HttpRequest req;
+	private ByteBuf outputBuffer;
+
+	public MetricsHandler(HttpRequest req, ByteBuf outputBuffer) {
+		this.req = req;
+		this.outputBuffer = outputBuffer;
+	}
+
+	/**
+	 * Handler method to get the metrics
+	 *
+	 * @param None
+	 * @return Object
+	 */
+	public Object handleMetricsRequest() {
+		if (req.getMethod() != GET) {
+			LoggingService.logWarning(MODULE_NAME, "Request method not allowed");
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED, outputBuffer);
+		}
+
+		outputBuffer.writeBytes(StatusReporter.getMetrics().getBytes(StandardCharsets.UTF_8));
+		FullHttpResponse res = new DefaultFullHttpResponse(HTTP_1_1, OK, outputBuffer);
+		res.headers().set(HttpHeaders.Names.CONTENT_TYPE, "text/plain; version=0.0.4; charset=utf-8");
+		HttpHeaders.setContentLength(res, outputBuffer.readableBytes());
+		return res;
+	}
+
+	/**
+	 * Overriden method of the Callable interface which call the handler method
+	 *
+	 * @param None
+	 * @return Object
+	 */
+	@Override
+	public Object call() throws Exception {
+		return handleMetricsRequest();
+	}
+}
@@ -16,7 +16,7 @@ import static io.netty.handler.codec.http.HttpMethod.*;
 import static io.netty.handler.codec.http.HttpResponseStatus.*;
 import static io.netty.handler.codec.http.HttpVersion.*;
 
-import java.io.StringReader;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -31,9 +31,11 @@ import javax.json.JsonReader;
 
 import org.eclipse.iofog.message_bus.Message;
 import org.eclipse.iofog.message_bus.MessageBusUtil;
+import org.eclipse.iofog.message_bus.MessageIdGenerator;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -52,9 +54,9 @@ public class QueryMessageReceiverHandler implements Callable<Object> {
 
 	private final HttpRequest req;
 	private ByteBuf outputBuffer;
-	private final byte[] content;
+	private final ByteBuf content;
 
-	public QueryMessageReceiverHandler(HttpRequest req, ByteBuf outputBuffer, byte[] content) {
+	public QueryMessageReceiverHandler(HttpRequest req, ByteBuf outputBuffer, ByteBuf content) {
 		this.req = req;
 		this.outputBuffer = outputBuffer;
 		this.content = content;
@@ -72,7 +74,7 @@ public class QueryMessageReceiverHandler implements Callable<Object> {
 
 		if (req.getMethod() != POST) {
 			LoggingService.logWarning(MODULE_NAME, "Request method not allowed");
-			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED);
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED, outputBuffer);
 		}
 
 		if (!(headers.get(HttpHeaders.Names.CONTENT_TYPE).equals("application/json"))) {
@@ -82,8 +84,7 @@ public class QueryMessageReceiverHandler implements Callable<Object> {
 			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.BAD_REQUEST, outputBuffer);
 		}
 
-		String requestBody = new String(content, StandardCharsets.UTF_8);
-		JsonReader reader = Json.createReader(new StringReader(requestBody));
+		JsonReader reader = Json.createReader(new InputStreamReader(new ByteBufInputStream(content.duplicate()), StandardCharsets.UTF_8));
 		JsonObject jsonObject = reader.readObject();
 
 		try {
@@ -96,10 +97,6 @@ public class QueryMessageReceiverHandler implements Callable<Object> {
 		}
 
 		String receiverId = jsonObject.getString("id");
-		long timeframeStart = Long.parseLong(jsonObject.get("timeframestart").toString());
-		long timeframeEnd = Long.parseLong(jsonObject.get("timeframeend").toString());
-		long actualTimeframeEnd = timeframeEnd;
-		
 		JsonArray publishersArray = jsonObject.getJsonArray("publishers");
 
 		JsonBuilderFactory factory = Json.createBuilderFactory(null);
@@ -109,13 +106,38 @@ public class QueryMessageReceiverHandler implements Callable<Object> {
 		MessageBusUtil bus = new MessageBusUtil();
 		int msgCount = 0;
 
+		if (jsonObject.containsKey("messageid")) {
+			String messageId = jsonObject.getString("messageid");
+			for (int i = 0; i < publishersArray.size(); i++) {
+				Message msg = bus.getMessageById(publishersArray.getString(i), receiverId, messageId);
+				if (msg != null) {
+					messagesArray.add(msg.toJson());
+					msgCount++;
+					break;
+				}
+			}
+
+			builder.add("status", "okay");
+			builder.add("count", msgCount);
+			builder.add("messages", messagesArray);
+			return buildResponse(builder);
+		}
+
+		String fromId = jsonObject.containsKey("fromid") ? jsonObject.getString("fromid") : null;
+		long timeframeStart = fromId != null ? MessageIdGenerator.getTimestamp(fromId)
+				: Long.parseLong(jsonObject.get("timeframestart").toString());
+		long timeframeEnd = Long.parseLong(jsonObject.get("timeframeend").toString());
+		long actualTimeframeEnd = timeframeEnd;
+
 		for (int i = 0; i < publishersArray.size(); i++) {
 			String publisherId = publishersArray.getString(i);
 
 			List<Message> messageList = bus.messageQuery(publisherId, receiverId, timeframeStart, timeframeEnd);
 
-			if (messageList != null) {
+			if (messageList != null && !messageList.isEmpty()) {
 				for (Message msg : messageList) {
+					if (fromId != null && msg.getId().compareTo(fromId) <= 0)
+						continue;
 					JsonObject msgJson = msg.toJson();
 					messagesArray.add(msgJson);
 					msgCount++;
@@ -130,7 +152,16 @@ public class QueryMessageReceiverHandler implements Callable<Object> {
 		builder.add("timeframestart", timeframeStart);
 		builder.add("timeframeend", actualTimeframeEnd);
 		builder.add("messages", messagesArray);
+		return buildResponse(builder);
+	}
 
+	/**
+	 * Build the response for the query
+	 * 
+	 * @param JsonObjectBuilder
+	 * @return FullHttpResponse
+	 */
+	private FullHttpResponse buildResponse(JsonObjectBuilder builder) {
 		String result = builder.build().toString();
 		outputBuffer.writeBytes(result.getBytes());
 		FullHttpResponse res = new DefaultFullHttpResponse(HTTP_1_1, OK, outputBuffer);
@@ -150,7 +181,17 @@ public class QueryMessageReceiverHandler implements Callable<Object> {
 			throw new Exception("Error: Missing input field id");
 		}
 
-		if (!(message.containsKey("timeframestart") && message.containsKey("timeframeend"))) {
+		if (message.containsKey("messageid")) {
+			if (MessageIdGenerator.getTimestamp(message.getString("messageid")) < 0)
+				throw new Exception("Error: Invalid value of messageid");
+		} else if (message.containsKey("fromid")) {
+			if (MessageIdGenerator.getTimestamp(message.getString("fromid")) < 0)
+				throw new Exception("Error: Invalid value of fromid");
+			if (!message.containsKey("timeframeend")) {
+				LoggingService.logWarning(MODULE_NAME, "timeframeend not found");
+				throw new Exception("Error: Missing input field timeframe end");
+			}
+		} else if (!(message.containsKey("timeframestart") && message.containsKey("timeframeend"))) {
 			LoggingService.logWarning(MODULE_NAME, "timeframestart or timeframeend not found");
 			throw new Exception("Error: Missing input field timeframe start or end");
 		}
@@ -160,17 +201,19 @@ public class QueryMessageReceiverHandler implements Callable<Object> {
 			throw new Exception("Error: Missing input field publishers");
 		}
 
-		try {
-			Long.parseLong(message.get("timeframestart").toString());
-		} catch (Exception e) {
-			throw new Exception("Error: Invalid value of timeframestart");
-		}
+		if (message.containsKey("timeframestart"))
+			try {
+				Long.parseLong(message.get("timeframestart").toString());
+			} catch (Exception e) {
+				throw new Exception("Error: Invalid value of timeframestart");
+			}
 
-		try {
-			Long.parseLong(message.get("timeframeend").toString());
-		} catch (Exception e) {
-			throw new Exception("Error: Invalid value of timeframeend");
-		}
+		if (message.containsKey("timeframeend"))
+			try {
+				Long.parseLong(message.get("timeframeend").toString());
+			} catch (Exception e) {
+				throw new Exception("Error: Invalid value of timeframeend");
+			}
 
 		if ((message.getString("id").trim().equals("")))
 			throw new Exception("Error: Missing input field value id");
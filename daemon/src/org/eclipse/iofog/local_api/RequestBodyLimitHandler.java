@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+import org.eclipse.iofog.utils.Constants;
+import org.eclipse.iofog.utils.logging.LoggingService;
+
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Enforce the request body limit of the endpoint before the body is aggregated.
+ * Request with larger Content-Length is rejected before its body is read,
+ * chunked request is rejected as soon as it grows over the limit.
+ * @author ashita
+ * @since 2016
+ */
+public class RequestBodyLimitHandler extends ChannelInboundHandlerAdapter {
+
+	private final String MODULE_NAME = "Local API";
+
+	private long limit;
+	private long received;
+	private boolean discarding;
+
+	/**
+	 * Get body limit of the endpoint
+	 * @param String
+	 * @return long
+	 */
+	static long getLimit(String uri) {
+		LocalApiRouter.Route route = LocalApiRouter.match(uri);
+		return route != null ? route.getMaxBodyBytes() : Constants.LOCAL_API_MAX_BODY_BYTES;
+	}
+
+	/**
+	 * Largest body limit of all endpoints
+	 * @param None
+	 * @return int
+	 */
+	static int getMaxLimit() {
+		return (int) Math.max(Constants.LOCAL_API_MAX_MESSAGE_BODY_BYTES,
+				Math.max(Constants.LOCAL_API_MAX_PROXY_BODY_BYTES, Constants.LOCAL_API_MAX_BODY_BYTES));
+	}
+
+	/**
+	 * Check the request and body chunks against the limit
+	 * @param ChannelHandlerContext, Object
+	 * @return void
+	 */
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (msg instanceof HttpRequest) {
+			HttpRequest req = (HttpRequest) msg;
+			limit = getLimit(req.getUri());
+			received = 0;
+			discarding = false;
+			if (HttpHeaders.getContentLength(req, 0) > limit) {
+				reject(ctx, msg);
+				return;
+			}
+		}
+
+		if (msg instanceof HttpContent) {
+			if (discarding) {
+				ReferenceCountUtil.release(msg);
+				return;
+			}
+			received += ((HttpContent) msg).content().readableBytes();
+			if (received > limit) {
+				reject(ctx, msg);
+				return;
+			}
+		}
+
+		ctx.fireChannelRead(msg);
+	}
+
+	/**
+	 * Send 413 response and close the connection
+	 * @param ChannelHandlerContext, Object
+	 * @return void
+	 */
+	private void reject(ChannelHandlerContext ctx, Object msg) {
+		discarding = !(msg instanceof LastHttpContent);
+		ReferenceCountUtil.release(msg);
+		LoggingService.logWarning(MODULE_NAME, "Request body is larger than " + limit + " bytes");
+		FullHttpResponse res = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+		HttpHeaders.setContentLength(res, 0);
+		ctx.writeAndFlush(res).addListener(ChannelFutureListener.CLOSE);
+	}
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import static io.netty.handler.codec.http.HttpMethod.POST;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.Callable;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+
+import org.eclipse.iofog.message_bus.MessageBusUtil;
+import org.eclipse.iofog.message_bus.SharedMemoryHandle;
+import org.eclipse.iofog.utils.logging.LoggingService;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * Handler to reserve space in the shared memory region for a large payload.
+ * The publisher writes the payload at the returned offset of the region file
+ * and publishes a message with the returned handle as its content and
+ * the returned info format.
+ *
+ * @author ashita
+ * @since 2016
+ */
+public class SharedMemoryAllocateHandler implements Callable<Object> {
+
+	private final String MODULE_NAME = "Local API";
+
+	private final HttpRequest req;
+	private ByteBuf outputBuffer;
+	private final ByteBuf content;
+
+	public SharedMemoryAllocateHandler(HttpRequest req, ByteBuf outputBuffer, ByteBuf content) {
+		this.req = req;
+		this.outputBuffer = outputBuffer;
+		this.content = content;
+	}
+
+	/**
+	 * Handler method to allocate the shared memory for the publisher
+	 *
+	 * @param None
+	 * @return Object
+	 */
+	public Object handleAllocateRequest() throws Exception {
+		HttpHeaders headers = req.headers();
+
+		if (req.getMethod() != POST) {
+			LoggingService.logWarning(MODULE_NAME, "Request method not allowed");
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED, outputBuffer);
+		}
+
+		if (!(headers.get(HttpHeaders.Names.CONTENT_TYPE).trim().split(";")[0].equalsIgnoreCase("application/json"))) {
+			String errorMsg = " Incorrect content type ";
+			LoggingService.logWarning(MODULE_NAME, errorMsg);
+			outputBuffer.writeBytes(errorMsg.getBytes());
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.BAD_REQUEST, outputBuffer);
+		}
+
+		JsonReader reader = Json.createReader(new InputStreamReader(new ByteBufInputStream(content.duplicate()), StandardCharsets.UTF_8));
+		JsonObject jsonObject = reader.readObject();
+
+		try {
+			validateRequest(jsonObject);
+		} catch (Exception e) {
+			String errorMsg = "Incorrect content/data" + e.getMessage();
+			LoggingService.logWarning(MODULE_NAME, errorMsg);
+			outputBuffer.writeBytes(errorMsg.getBytes());
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.BAD_REQUEST, outputBuffer);
+		}
+
+		MessageBusUtil bus = new MessageBusUtil();
+		String path = bus.getSharedMemoryPath();
+		SharedMemoryHandle handle = path == null ? null
+				: bus.allocateSharedMemory(jsonObject.getString("id"), jsonObject.getInt("length"));
+		if (handle == null) {
+			String errorMsg = path == null ? " Shared memory not enabled " : " Shared memory not available ";
+			LoggingService.logWarning(MODULE_NAME, errorMsg);
+			outputBuffer.writeBytes(errorMsg.getBytes());
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.SERVICE_UNAVAILABLE, outputBuffer);
+		}
+
+		JsonObjectBuilder builder = Json.createObjectBuilder();
+		builder.add("status", "okay");
+		builder.add("path", path);
+		builder.add("offset", handle.getOffset());
+		builder.add("length", handle.getLength());
+		builder.add("generation", handle.getGeneration());
+		builder.add("handle", Base64.getEncoder().encodeToString(handle.getBytes()));
+		builder.add("infoformat", SharedMemoryHandle.INFO_FORMAT);
+
+		String result = builder.build().toString();
+		outputBuffer.writeBytes(result.getBytes());
+		FullHttpResponse res = new DefaultFullHttpResponse(HTTP_1_1, OK, outputBuffer);
+		HttpHeaders.setContentLength(res, outputBuffer.readableBytes());
+		return res;
+	}
+
+	/**
+	 * Validate the request
+	 *
+	 * @param JsonObject
+	 * @return String
+	 */
+	private void validateRequest(JsonObject jsonObject) throws Exception {
+		if (!jsonObject.containsKey("id"))
+			throw new Exception(" Id not found ");
+		if (jsonObject.getString("id").trim().equals(""))
+			throw new Exception(" Id value not found ");
+		if (!jsonObject.containsKey("length"))
+			throw new Exception(" Length not found ");
+		try {
+			if (jsonObject.getInt("length") < 0)
+				throw new Exception();
+		} catch (Exception e) {
+			throw new Exception(" Invalid value of length ");
+		}
+	}
+
+	/**
+	 * Overriden method of the Callable interface which call the handler method
+	 *
+	 * @param None
+	 * @return Object
+	 */
+	@Override
+	public Object call() throws Exception {
+		return handleAllocateRequest();
+	}
+}
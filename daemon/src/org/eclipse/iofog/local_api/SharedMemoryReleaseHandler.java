@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import static io.netty.handler.codec.http.HttpMethod.POST;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+
+import org.eclipse.iofog.message_bus.MessageBusUtil;
+import org.eclipse.iofog.message_bus.SharedMemoryHandle;
+import org.eclipse.iofog.utils.logging.LoggingService;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * Handler for the receiver to release shared memory payloads which it has read.
+ * Needed for messages received without acknowledgement, acknowledged
+ * leases and real-time messages release their payloads on their own.
+ *
+ * @author ashita
+ * @since 2016
+ */
+public class SharedMemoryReleaseHandler implements Callable<Object> {
+
+	private final String MODULE_NAME = "Local API";
+
+	private final HttpRequest req;
+	private ByteBuf outputBuffer;
+	private final ByteBuf content;
+
+	public SharedMemoryReleaseHandler(HttpRequest req, ByteBuf outputBuffer, ByteBuf content) {
+		this.req = req;
+		this.outputBuffer = outputBuffer;
+		this.content = content;
+	}
+
+	/**
+	 * Handler method to release the shared memory handles of the receiver
+	 *
+	 * @param None
+	 * @return Object
+	 */
+	public Object handleReleaseRequest() throws Exception {
+		HttpHeaders headers = req.headers();
+
+		if (req.getMethod() != POST) {
+			LoggingService.logWarning(MODULE_NAME, "Request method not allowed");
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED, outputBuffer);
+		}
+
+		if (!(headers.get(HttpHeaders.Names.CONTENT_TYPE).trim().split(";")[0].equalsIgnoreCase("application/json"))) {
+			String errorMsg = " Incorrect content type ";
+			LoggingService.logWarning(MODULE_NAME, errorMsg);
+			outputBuffer.writeBytes(errorMsg.getBytes());
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.BAD_REQUEST, outputBuffer);
+		}
+
+		JsonReader reader = Json.createReader(new InputStreamReader(new ByteBufInputStream(content.duplicate()), StandardCharsets.UTF_8));
+		JsonObject jsonObject = reader.readObject();
+
+		List<SharedMemoryHandle> handles;
+		try {
+			validateRequest(jsonObject);
+			handles = getHandles(jsonObject);
+		} catch (Exception e) {
+			String errorMsg = "Incorrect content/data" + e.getMessage();
+			LoggingService.logWarning(MODULE_NAME, errorMsg);
+			outputBuffer.writeBytes(errorMsg.getBytes());
+			return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.BAD_REQUEST, outputBuffer);
+		}
+
+		String receiverId = jsonObject.getString("id");
+		MessageBusUtil bus = new MessageBusUtil();
+		handles.forEach(handle -> bus.releaseSharedMemory(receiverId, handle));
+
+		JsonObjectBuilder builder = Json.createObjectBuilder();
+		builder.add("status", "okay");
+		builder.add("count", handles.size());
+
+		String result = builder.build().toString();
+		outputBuffer.writeBytes(result.getBytes());
+		FullHttpResponse res = new DefaultFullHttpResponse(HTTP_1_1, OK, outputBuffer);
+		HttpHeaders.setContentLength(res, outputBuffer.readableBytes());
+		return res;
+	}
+
+	/**
+	 * Get handles from the request, handle is the base64 content of the message
+	 *
+	 * @param JsonObject
+	 * @return List<SharedMemoryHandle>
+	 */
+	private List<SharedMemoryHandle> getHandles(JsonObject jsonObject) throws Exception {
+		JsonArray handlesArray = jsonObject.getJsonArray("handles");
+		List<SharedMemoryHandle> handles = new ArrayList<>(handlesArray.size());
+		for (int i = 0; i < handlesArray.size(); i++) {
+			SharedMemoryHandle handle = SharedMemoryHandle.fromBytes(Base64.getDecoder().decode(handlesArray.getString(i)));
+			if (handle == null)
+				throw new Exception(" Invalid handle ");
+			handles.add(handle);
+		}
+		return handles;
+	}
+
+	/**
+	 * Validate the request
+	 *
+	 * @param JsonObject
+	 * @return String
+	 */
+	private void validateRequest(JsonObject jsonObject) throws Exception {
+		if (!jsonObject.containsKey("id"))
+			throw new Exception(" Id not found ");
+		if (jsonObject.getString("id").trim().equals(""))
+			throw new Exception(" Id value not found ");
+		if (!jsonObject.containsKey("handles"))
+			throw new Exception(" Handles not found ");
+	}
+
+	/**
+	 * Overriden method of the Callable interface which call the handler method
+	 *
+	 * @param None
+	 * @return Object
+	 */
+	@Override
+	public Object call() throws Exception {
+		return handleReleaseRequest();
+	}
+}
@@ -12,59 +12,123 @@
  *******************************************************************************/
 package org.eclipse.iofog.local_api;
 
-import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.iofog.local_api.WebsocketConnection.Type;
+import org.eclipse.iofog.message_bus.MessageBus;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.AttributeKey;
 
 /**
- * Real-time message and cotrol open websockets map.
- * Unacknowledged messages and control signals map.
+ * Registry of real-time message and control open websockets.
+ * Element id is mapped to the control connection state and to the group
+ * of message connections, the channel refers back to its connection state
+ * through an attribute.
  * @author ashita
  * @since 2016
  */
 public class WebSocketMap {
-	static Hashtable<String, ChannelHandlerContext> controlWebsocketMap;
-	static Hashtable<String, ChannelHandlerContext> messageWebsocketMap;
-	
-	static Hashtable<ChannelHandlerContext, MessageSentInfo> unackMessageSendingMap;
-	static Hashtable<ChannelHandlerContext, ControlSignalSentInfo> unackControlSignalsMap;
+	static final AttributeKey<WebsocketConnection> CONNECTION = AttributeKey.valueOf("websocketConnection");
 
-	private static WebSocketMap instance = null;
+	private static final Map<String, WebsocketConnection> controlWebsockets = new ConcurrentHashMap<>();
+	private static final Map<String, MessageWebsocketGroup> messageWebsockets = new ConcurrentHashMap<>();
+	private static final AtomicInteger messageWebsocketsCount = new AtomicInteger();
 
 	private WebSocketMap(){
 
 	}
-	
+
 	/**
-	 * Singleton Real-time message and cotrol open websockets map.
-	 * Singleton unacknowledged messages and control signals map.
-	 * @param None
-	 * @return WebSocketMap
+	 * Register the control websocket of the element
+	 * Previous websocket of the element is replaced
+	 * @param String, ChannelHandlerContext
+	 * @return WebsocketConnection
 	 */
-	public static WebSocketMap getInstance(){
-		if (instance == null) {
-			synchronized (WebSocketMap.class) {
-				if(instance == null){
-					instance = new WebSocketMap();
-					controlWebsocketMap = new Hashtable<String, ChannelHandlerContext>();
-					messageWebsocketMap = new Hashtable<String, ChannelHandlerContext>();
-					unackMessageSendingMap = new Hashtable<ChannelHandlerContext, MessageSentInfo>();
-					unackControlSignalsMap = new Hashtable<ChannelHandlerContext, ControlSignalSentInfo>();
-				}
-			}
-		}
-		return instance;
+	public static WebsocketConnection addControlWebsocket(String id, ChannelHandlerContext ctx) {
+		WebsocketConnection connection = new WebsocketConnection(Type.CONTROL, id, ctx, null);
+		ctx.channel().attr(CONNECTION).set(connection);
+		controlWebsockets.put(id, connection);
+		return connection;
+	}
+
+	/**
+	 * Register the message websocket of the element
+	 * @param String, ChannelHandlerContext, boolean - join consumer group, 
+	 * 		List<WebsocketConnection> - receives the replaced websockets
+	 * @return WebsocketConnection
+	 */
+	public static WebsocketConnection addMessageWebsocket(String id, ChannelHandlerContext ctx, boolean consumerGroup,
+			List<WebsocketConnection> replaced) {
+		WebsocketConnection[] added = new WebsocketConnection[1];
+		messageWebsockets.compute(id, (key, group) -> {
+			if (group == null)
+				group = new MessageWebsocketGroup(id);
+			added[0] = new WebsocketConnection(Type.MESSAGE, id, ctx, group);
+			replaced.addAll(group.add(added[0], consumerGroup));
+			return group;
+		});
+		ctx.channel().attr(CONNECTION).set(added[0]);
+		messageWebsocketsCount.incrementAndGet();
+		return added[0];
 	}
-	
-	public static void addWebsocket(char ws, String id, ChannelHandlerContext ctx) {
-		synchronized (WebSocketMap.class) {
-			switch (ws) {
-				case 'C':
-					controlWebsocketMap.put(id, ctx);
-					break;
-				case 'M':
-					messageWebsocketMap.put(id, ctx);
-			}
+
+	/**
+	 * Unregister the websocket of the channel
+	 * Real-time receiving of the element is disabled together with removing its
+	 * last message websocket, so a websocket registering meanwhile enables it again after
+	 * @param ChannelHandlerContext
+	 * @return WebsocketConnection or null if channel is not registered
+	 */
+	public static WebsocketConnection removeWebsocket(ChannelHandlerContext ctx) {
+		WebsocketConnection connection = ctx.channel().attr(CONNECTION).getAndSet(null);
+		if (connection == null)
+			return null;
+		if (connection.getType() == Type.CONTROL) {
+			controlWebsockets.remove(connection.getId(), connection);
+		} else {
+			messageWebsockets.computeIfPresent(connection.getId(), (key, group) -> {
+				if (!group.remove(connection))
+					return group;
+				MessageBus.getInstance().disableRealTimeReceiving(key);
+				return null;
+			});
+			messageWebsocketsCount.decrementAndGet();
 		}
+		return connection;
+	}
+
+	/**
+	 * Get websocket state of the channel
+	 * @param ChannelHandlerContext
+	 * @return WebsocketConnection or null if channel is not registered
+	 */
+	public static WebsocketConnection getConnection(ChannelHandlerContext ctx) {
+		return ctx.channel().attr(CONNECTION).get();
+	}
+
+	/**
+	 * Get control websocket of the element
+	 * @param String
+	 * @return WebsocketConnection or null if element has no open websocket
+	 */
+	public static WebsocketConnection getControlWebsocket(String id) {
+		return controlWebsockets.get(id);
+	}
+
+	/**
+	 * Get message websockets of the element
+	 * @param String
+	 * @return MessageWebsocketGroup or null if element has no open websocket
+	 */
+	public static MessageWebsocketGroup getMessageWebsockets(String id) {
+		return messageWebsockets.get(id);
+	}
+
+	public static int getWebsocketsCount(Type type) {
+		return type == Type.CONTROL ? controlWebsockets.size() : messageWebsocketsCount.get();
 	}
-}
\ No newline at end of file
+}
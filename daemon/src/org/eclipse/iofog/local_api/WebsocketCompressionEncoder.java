@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import java.util.List;
+import java.util.zip.Deflater;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionEncoder;
+
+/**
+ * permessage-deflate encoder of the real-time websockets.
+ * Unfragmented data frames from the threshold up are compressed, smaller 
+ * frames are sent as they are and do not take CPU time.
+ * Compression context is kept between messages unless the container
+ * asked for server_no_context_takeover.
+ * @author ashita
+ * @since 2016
+ */
+public class WebsocketCompressionEncoder extends WebSocketExtensionEncoder {
+	private static final int TAIL_BYTES = 4;
+	private static final int CHUNK_BYTES = 8192;
+
+	private final int threshold;
+	private final boolean noContext;
+	private final Deflater deflater;
+	private final byte[] chunk;
+
+	public WebsocketCompressionEncoder(int level, int threshold, boolean noContext) {
+		this.threshold = threshold;
+		this.noContext = noContext;
+		this.deflater = new Deflater(level, true);
+		this.chunk = new byte[CHUNK_BYTES];
+	}
+
+	@Override
+	public boolean acceptOutboundMessage(Object msg) throws Exception {
+		if (!(msg instanceof BinaryWebSocketFrame) && !(msg instanceof TextWebSocketFrame))
+			return false;
+		WebSocketFrame frame = (WebSocketFrame) msg;
+		return frame.isFinalFragment() && (frame.rsv() & WebSocketExtension.RSV1) == 0
+				&& frame.content().readableBytes() >= threshold;
+	}
+
+	/**
+	 * Deflate the frame payload
+	 * Trailing empty block of the sync flush is removed as required by RFC 7692
+	 * @param ChannelHandlerContext, WebSocketFrame, List<Object>
+	 * @return void
+	 */
+	@Override
+	protected void encode(ChannelHandlerContext ctx, WebSocketFrame frame, List<Object> out) throws Exception {
+		ByteBuf content = frame.content();
+		int length = content.readableBytes();
+		if (content.hasArray()) {
+			deflater.setInput(content.array(), content.arrayOffset() + content.readerIndex(), length);
+		} else {
+			byte[] input = new byte[length];
+			content.getBytes(content.readerIndex(), input);
+			deflater.setInput(input);
+		}
+
+		ByteBuf compressed = ctx.alloc().buffer(length / 2 + TAIL_BYTES);
+		int count;
+		do {
+			count = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+			compressed.writeBytes(chunk, 0, count);
+		} while (count == chunk.length);
+		compressed.writerIndex(compressed.writerIndex() - TAIL_BYTES);
+		if (noContext)
+			deflater.reset();
+
+		int rsv = frame.rsv() | WebSocketExtension.RSV1;
+		if (frame instanceof TextWebSocketFrame)
+			out.add(new TextWebSocketFrame(true, rsv, compressed));
+		else
+			out.add(new BinaryWebSocketFrame(true, rsv, compressed));
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+		deflater.end();
+		super.handlerRemoved(ctx);
+	}
+}
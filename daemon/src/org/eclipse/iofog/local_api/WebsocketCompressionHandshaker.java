@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import org.eclipse.iofog.utils.Constants;
+
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionDecoder;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionEncoder;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+
+/**
+ * Negotiate permessage-deflate for the real-time websockets.
+ * Negotiation and decompression of the container frames are done by netty,
+ * outgoing frames are compressed only above the size threshold.
+ * Requests for a smaller server window are declined, the deflater 
+ * always uses the full window.
+ * @author ashita
+ * @since 2016
+ */
+public class WebsocketCompressionHandshaker implements WebSocketServerExtensionHandshaker {
+	private static final String SERVER_NO_CONTEXT = "server_no_context_takeover";
+
+	private final PerMessageDeflateServerExtensionHandshaker handshaker;
+
+	public WebsocketCompressionHandshaker() {
+		this.handshaker = new PerMessageDeflateServerExtensionHandshaker(Constants.LOCAL_API_COMPRESSION_LEVEL, false,
+				PerMessageDeflateServerExtensionHandshaker.MAX_WINDOW_SIZE, true, false);
+	}
+
+	/**
+	 * Accept the extension offered by the container
+	 * @param WebSocketExtensionData
+	 * @return WebSocketServerExtension or null if offer is declined
+	 */
+	@Override
+	public WebSocketServerExtension handshakeExtension(WebSocketExtensionData extensionData) {
+		WebSocketServerExtension extension = handshaker.handshakeExtension(extensionData);
+		return extension == null ? null : new CompressionExtension(extension);
+	}
+
+	private static class CompressionExtension implements WebSocketServerExtension {
+		private final WebSocketServerExtension extension;
+
+		private CompressionExtension(WebSocketServerExtension extension) {
+			this.extension = extension;
+		}
+
+		@Override
+		public int rsv() {
+			return extension.rsv();
+		}
+
+		@Override
+		public WebSocketExtensionEncoder newExtensionEncoder() {
+			boolean noContext = extension.newReponseData().parameters().containsKey(SERVER_NO_CONTEXT);
+			return new WebsocketCompressionEncoder(Constants.LOCAL_API_COMPRESSION_LEVEL,
+					Constants.LOCAL_API_COMPRESSION_THRESHOLD, noContext);
+		}
+
+		@Override
+		public WebSocketExtensionDecoder newExtensionDecoder() {
+			return extension.newExtensionDecoder();
+		}
+
+		@Override
+		public WebSocketExtensionData newReponseData() {
+			return extension.newReponseData();
+		}
+	}
+}
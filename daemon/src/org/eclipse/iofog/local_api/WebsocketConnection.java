@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * State of an open real-time websocket.
+ * Message websocket keeps the window of the messages in flight.
+ * @author ashita
+ * @since 2016
+ */
+public class WebsocketConnection {
+
+	public enum Type {
+		CONTROL, MESSAGE
+	}
+
+	/**
+	 * What the control websocket receives on configuration change
+	 * SIGNAL - control signal, container gets the configuration over http
+	 * CONFIG - new configuration with its version
+	 * PATCH - merge patch against the previous version when smaller, otherwise the configuration
+	 */
+	public enum ConfigPush {
+		SIGNAL, CONFIG, PATCH
+	}
+
+	private final Type type;
+	private final String id;
+	private final ChannelHandlerContext ctx;
+	private final MessageWindow messageWindow;
+	private volatile ControlSignalSentInfo unackControlSignal;
+	private volatile ConfigPush configPush = ConfigPush.SIGNAL;
+
+	WebsocketConnection(Type type, String id, ChannelHandlerContext ctx, MessageWebsocketGroup group) {
+		this.type = type;
+		this.id = id;
+		this.ctx = ctx;
+		this.messageWindow = type == Type.MESSAGE ? new MessageWindow(ctx, id, group) : null;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Get element id of the websocket
+	 * @param none
+	 * @return String
+	 */
+	public String getId() {
+		return id;
+	}
+
+	public ChannelHandlerContext getContext() {
+		return ctx;
+	}
+
+	/**
+	 * Get window of the messages in flight
+	 * @param none
+	 * @return MessageWindow or null for control websocket
+	 */
+	public MessageWindow getMessageWindow() {
+		return messageWindow;
+	}
+
+	public ControlSignalSentInfo getUnackControlSignal() {
+		return unackControlSignal;
+	}
+
+	public void setUnackControlSignal(ControlSignalSentInfo unackControlSignal) {
+		this.unackControlSignal = unackControlSignal;
+	}
+
+	public ConfigPush getConfigPush() {
+		return configPush;
+	}
+
+	public void setConfigPush(ConfigPush configPush) {
+		this.configPush = configPush;
+	}
+}
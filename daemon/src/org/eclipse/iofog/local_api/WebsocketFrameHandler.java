@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api;
+
+import org.eclipse.iofog.utils.Constants;
+import org.eclipse.iofog.utils.logging.LoggingService;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+
+/**
+ * Pipeline handler of an open real-time websocket.
+ * Replaces the http handler after the handshake, registers the socket
+ * and passes the frames to the control or message socket handler.
+ * @author ashita
+ * @since 2016
+ */
+public class WebsocketFrameHandler extends SimpleChannelInboundHandler<WebSocketFrame> {
+
+	private final String MODULE_NAME = "Local API";
+
+	/**
+	 * Control or message socket of the connection
+	 */
+	interface Role {
+		void register(ChannelHandlerContext ctx, String id) throws Exception;
+
+		void unregister(ChannelHandlerContext ctx) throws Exception;
+
+		void handleWebSocketFrame(ChannelHandlerContext ctx, WebSocketFrame frame) throws Exception;
+	}
+
+	private final Role role;
+	private final String id;
+	private int missedPings;
+
+	public WebsocketFrameHandler(Role role, String id) {
+		this.role = role;
+		this.id = id;
+	}
+
+	/**
+	 * Register the socket of the element and start idle detection
+	 * @param ChannelHandlerContext
+	 * @return void
+	 */
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		ctx.pipeline().addBefore(ctx.name(), "idle", new IdleStateHandler(Constants.LOCAL_API_WEBSOCKET_PING_SECONDS, 0, 0));
+		role.register(ctx, id);
+	}
+
+	/**
+	 * Unregister the socket when the connection is gone, with or without close frame
+	 * @param ChannelHandlerContext
+	 * @return void
+	 */
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		role.unregister(ctx);
+		super.channelInactive(ctx);
+	}
+
+	/**
+	 * Ping the container when nothing is received for LOCAL_API_WEBSOCKET_PING_SECONDS
+	 * Close the socket after LOCAL_API_WEBSOCKET_MAX_MISSED_PINGS unanswered pings
+	 * @param ChannelHandlerContext, Object
+	 * @return void
+	 */
+	@Override
+	public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+		if (!(evt instanceof IdleStateEvent)) {
+			super.userEventTriggered(ctx, evt);
+			return;
+		}
+		if (((IdleStateEvent) evt).isFirst())
+			missedPings = 0;
+		if (missedPings++ >= Constants.LOCAL_API_WEBSOCKET_MAX_MISSED_PINGS) {
+			LoggingService.logWarning(MODULE_NAME, "Real-time websocket of " + id + " is not responding, closing");
+			ctx.close();
+			return;
+		}
+		ctx.writeAndFlush(new PingWebSocketFrame());
+	}
+
+	/**
+	 * Continue sending real-time messages when the channel is writable again
+	 * @param ChannelHandlerContext
+	 * @return void
+	 */
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		WebsocketConnection connection = WebSocketMap.getConnection(ctx);
+		if (connection != null && connection.getMessageWindow() != null)
+			connection.getMessageWindow().writabilityChanged();
+		super.channelWritabilityChanged(ctx);
+	}
+
+	/**
+	 * Pass the frame to the socket handler
+	 * @param ChannelHandlerContext, WebSocketFrame
+	 * @return void
+	 */
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) {
+		try {
+			role.handleWebSocketFrame(ctx, frame);
+		} catch (Exception e) {
+			LoggingService.logWarning(MODULE_NAME, "Failed to handle real-time websocket frame: " + e.getMessage());
+		}
+	}
+
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+		ctx.flush();
+	}
+}
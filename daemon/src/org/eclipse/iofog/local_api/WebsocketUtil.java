@@ -12,13 +12,14 @@
  *******************************************************************************/
 package org.eclipse.iofog.local_api;
 
-import java.util.Hashtable;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import org.eclipse.iofog.utils.logging.LoggingService;
+import org.eclipse.iofog.utils.Constants;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
 
 /**
  * Utility class for the real-time message and control websockets
@@ -26,50 +27,35 @@ import io.netty.channel.ChannelHandlerContext;
  * @since 2016
  */
 public class WebsocketUtil {
-	private static final String MODULE_NAME = "Local API";
-	
+	private static final HashedWheelTimer ackTimer = new HashedWheelTimer(new DefaultThreadFactory("localapi-ack-timer", true),
+			Constants.LOCAL_API_ACK_TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+
 	/**
-	 * Remove inactive websocket from the open websocket map
-	 * @param ChannelHandlerContext, Hashtable<String, ChannelHandlerContext>
-	 * @return void
+	 * Get element id bound to the real-time websocket channel at handshake
+	 * @param ChannelHandlerContext
+	 * @return String or null if channel is not a real-time websocket
 	 */
-	public static synchronized void removeWebsocketContextFromMap(ChannelHandlerContext ctx, Hashtable<String, ChannelHandlerContext> socketMap){
-		for (Iterator<Map.Entry<String,ChannelHandlerContext>> it = socketMap.entrySet().iterator(); it.hasNext();) {
-			Map.Entry<String,ChannelHandlerContext> e = it.next();
-			if (ctx.equals(e.getValue())) {
-				LoggingService.logInfo(MODULE_NAME,"Removing real-time websocket context for the id: " + e.getKey());
-				it.remove();
-			}
-		}
+	public static String getWebsocketId(ChannelHandlerContext ctx) {
+		WebsocketConnection connection = WebSocketMap.getConnection(ctx);
+		return connection == null ? null : connection.getId();
 	}
-	
+
 	/**
-	 * Check if the container has open real-time websocket
-	 * @param ChannelHandlerContext, Hashtable<String, ChannelHandlerContext>
-	 * @return boolean
+	 * Run the task on the event loop of the websocket if it is not acknowledged in time
+	 * Timeout is cancelled on acknowledgement, idle websockets have no timers
+	 * @param ChannelHandlerContext, Runnable, long
+	 * @return Timeout
 	 */
-	public static boolean hasContextInMap(ChannelHandlerContext ctx, Hashtable<String, ChannelHandlerContext> socketMap) throws Exception{
-		for (ChannelHandlerContext context: socketMap.values()) 
-			if (context.equals(ctx))
-				return true;
-		
-		return false;
+	public static Timeout newAckTimeout(ChannelHandlerContext ctx, Runnable task, long timeoutMillis) {
+		return ackTimer.newTimeout(timeout -> ctx.executor().execute(task), timeoutMillis, TimeUnit.MILLISECONDS);
 	}
-	
+
 	/**
-	 * Get id for the real-time socket channel
-	 * @param ChannelHandlerContext, Hashtable<String, ChannelHandlerContext>
-	 * @return String
+	 * Acknowledgement timeout of the try, doubled on every try
+	 * @param int
+	 * @return long
 	 */
-	public static String getIdForWebsocket(ChannelHandlerContext ctx, Hashtable<String, ChannelHandlerContext> socketMap){
-		String id = "";
-		for (Iterator<Map.Entry<String,ChannelHandlerContext>> it = socketMap.entrySet().iterator(); it.hasNext();) {
-			Map.Entry<String,ChannelHandlerContext> e = it.next();
-			if (ctx.equals(e.getValue())) {
-				LoggingService.logInfo(MODULE_NAME,"Context found as real-time websocket");
-				return e.getKey();
-			}
-		}
-		return id;
+	public static long getAckTimeoutMillis(int tryCount) {
+		return Math.min(Constants.LOCAL_API_RETRANSMIT_MILLIS << (tryCount - 1), Constants.LOCAL_API_MAX_RETRANSMIT_MILLIS);
 	}
 }
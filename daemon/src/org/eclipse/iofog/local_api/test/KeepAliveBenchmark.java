@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api.test;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Requests per second of the local api with a new connection per request,
+ * with one persistent connection and with pipelined requests.
+ *
+ * usage: KeepAliveBenchmark [host] [port] [path] [requests] [pipeline depth]
+ */
+public class KeepAliveBenchmark {
+	private final String host;
+	private final int port;
+	private final byte[] request;
+	private final byte[] closeRequest;
+
+	public KeepAliveBenchmark(String host, int port, String path) {
+		this.host = host;
+		this.port = port;
+		this.request = String.format("GET %s HTTP/1.1\r\nHost: %s\r\n\r\n", path, host).getBytes(StandardCharsets.US_ASCII);
+		this.closeRequest = String.format("GET %s HTTP/1.1\r\nHost: %s\r\nConnection: close\r\n\r\n", path, host)
+				.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private double newConnectionPerRequest(int requests) throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			try (Socket socket = new Socket(host, port)) {
+				socket.setTcpNoDelay(true);
+				socket.getOutputStream().write(closeRequest);
+				readResponse(new BufferedInputStream(socket.getInputStream()));
+			}
+		}
+		return requests * 1e9 / (System.nanoTime() - start);
+	}
+
+	private double persistentConnection(int requests, int depth) throws IOException {
+		long start = System.nanoTime();
+		try (Socket socket = new Socket(host, port)) {
+			socket.setTcpNoDelay(true);
+			OutputStream out = socket.getOutputStream();
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			int sent = 0;
+			int received = 0;
+			while (received < requests) {
+				while (sent < requests && sent - received < depth) {
+					out.write(request);
+					sent++;
+				}
+				out.flush();
+				readResponse(in);
+				received++;
+			}
+		}
+		return requests * 1e9 / (System.nanoTime() - start);
+	}
+
+	private static int readResponse(InputStream in) throws IOException {
+		int status = -1;
+		int contentLength = -1;
+		StringBuilder line = new StringBuilder();
+		while (true) {
+			int c = in.read();
+			if (c < 0)
+				throw new IOException("connection closed by server");
+			if (c == '\r')
+				continue;
+			if (c != '\n') {
+				line.append((char) c);
+				continue;
+			}
+			if (line.length() == 0)
+				break;
+			String header = line.toString();
+			if (status < 0)
+				status = Integer.parseInt(header.split(" ")[1]);
+			else if (header.toLowerCase().startsWith("content-length:"))
+				contentLength = Integer.parseInt(header.substring(15).trim());
+			line.setLength(0);
+		}
+		if (contentLength < 0)
+			throw new IOException("response without Content-Length");
+		for (int i = 0; i < contentLength; i++)
+			if (in.read() < 0)
+				throw new IOException("connection closed by server");
+		return status;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String host = args.length > 0 ? args[0] : "127.0.0.1";
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : 54321;
+		String path = args.length > 2 ? args[2] : "/v2/messages/stats";
+		int requests = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+		int depth = args.length > 4 ? Integer.parseInt(args[4]) : 16;
+
+		KeepAliveBenchmark benchmark = new KeepAliveBenchmark(host, port, path);
+		benchmark.persistentConnection(requests / 10, depth);
+
+		System.out.println(String.format("new connection per request : %10.0f req/s", benchmark.newConnectionPerRequest(requests)));
+		System.out.println(String.format("persistent connection      : %10.0f req/s", benchmark.persistentConnection(requests, 1)));
+		System.out.println(String.format("pipelined (depth %3d)      : %10.0f req/s", depth, benchmark.persistentConnection(requests, depth)));
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.local_api.test;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import org.eclipse.iofog.message_bus.MessageIdGenerator;
+
+/**
+ * Ids per second of the time-ordered MessageIdGenerator and of the UUID
+ * based ids it replaced, generated the way the old refill thread did,
+ * on one thread and on concurrent threads.
+ *
+ * usage: MessageIdBenchmark [ids per thread] [threads]
+ */
+public class MessageIdBenchmark {
+	private static volatile Object sink;
+
+	private static double run(Supplier<String> ids, int count, int threads) throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				String id = null;
+				for (int i = 0; i < count; i++)
+					id = ids.get();
+				sink = id;
+			});
+			workers[t].start();
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Thread worker : workers)
+			worker.join();
+		return (double) count * threads * 1e9 / (System.nanoTime() - begin);
+	}
+
+	private static boolean isOrdered(MessageIdGenerator generator, int count) {
+		String last = generator.getNextId();
+		for (int i = 1; i < count; i++) {
+			String id = generator.getNextId();
+			if (id.compareTo(last) <= 0)
+				return false;
+			last = id;
+		}
+		return true;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		MessageIdGenerator generator = new MessageIdGenerator();
+		Supplier<String> uuid = () -> UUID.randomUUID().toString().replaceAll("-", "");
+		Supplier<String> timeOrdered = generator::getNextId;
+
+		run(uuid, count / 10, threads);
+		run(timeOrdered, count / 10, threads);
+
+		System.out.println(String.format("uuid, 1 thread              : %12.0f ids/s", run(uuid, count, 1)));
+		System.out.println(String.format("time-ordered, 1 thread      : %12.0f ids/s", run(timeOrdered, count, 1)));
+		System.out.println(String.format("uuid, %3d threads           : %12.0f ids/s", threads, run(uuid, count, threads)));
+		System.out.println(String.format("time-ordered, %3d threads   : %12.0f ids/s", threads, run(timeOrdered, count, threads)));
+		System.out.println("time-ordered ids increasing : " + isOrdered(generator, count));
+	}
+}
@@ -48,6 +48,7 @@ public class Message {
 	private String infoFormat;
 	private byte[] contextData;
 	private byte[] contentData;
+	private long publishTime;
 
 	public Message() {
 		version = VERSION;
@@ -491,6 +492,19 @@ public class Message {
 		this.contentData = contentData;
 	}
 
+	/**
+	 * returns {@link System#nanoTime()} of publishing in this process
+	 * it is not a part of {@link Message} bytes
+	 * 
+	 * @return publish time in nanoseconds or 0 if unknown
+	 */
+	public long getPublishTime() {
+		return publishTime;
+	}
+	public void setPublishTime(long publishTime) {
+		this.publishTime = publishTime;
+	}
+
 	private int getLength(String str) {
 		if (str == null)
 			return 0;
@@ -180,6 +180,122 @@ public class MessageArchive {
 		return runtime.maxMemory() - ((runtime.totalMemory() - runtime.freeMemory()));
 	}
 
+	/**
+	 * returns timestamp of first {@link Message} in index file
+	 * 
+	 * @param file - index file
+	 * @return timestamp
+	 */
+	private long getFileTimestamp(File file) {
+		String fileName = file.getName();
+		return Long.parseLong(fileName.substring(name.length() + 1, fileName.indexOf(".")));
+	}
+
+	/**
+	 * reads id of {@link Message} at a position of index file
+	 * 
+	 * @param indexFile - index file
+	 * @param dataFile - data file
+	 * @param index - position of {@link Message} in index file
+	 * @param header - buffer for header of {@link Message}
+	 * @return id
+	 * @throws Exception
+	 */
+	private String readId(RandomAccessFile indexFile, RandomAccessFile dataFile, long index, byte[] header) throws Exception {
+		indexFile.seek(index * (HEADER_SIZE + Long.BYTES));
+		indexFile.readFully(header, 0, HEADER_SIZE);
+		if (((header[0] * 256) + header[1]) != 4)
+			throw new Exception("invalid index file format");
+		byte[] id = new byte[header[2]];
+		dataFile.seek(indexFile.readLong());
+		dataFile.readFully(id);
+		return BytesUtil.bytesToString(id);
+	}
+
+	/**
+	 * finds {@link Message} in an index file by binary search on ids
+	 * 
+	 * @param file - index file
+	 * @param id - ID of {@link Message}
+	 * @return {@link Message} or null if not found
+	 * @throws Exception
+	 */
+	private Message findInFile(File file, String id) throws Exception {
+		String fileName = file.getName();
+		try (RandomAccessFile indexFile = new RandomAccessFile(file, "r");
+				RandomAccessFile dataFile = new RandomAccessFile(new File(diskDirectory + fileName.substring(0, fileName.indexOf(".")) + ".iomsg"), "r")) {
+			byte[] header = new byte[HEADER_SIZE];
+			long low = 0;
+			long high = indexFile.length() / (HEADER_SIZE + Long.BYTES) - 1;
+			while (low <= high) {
+				long mid = (low + high) >>> 1;
+				int cmp = readId(indexFile, dataFile, mid, header).compareTo(id);
+				if (cmp < 0) {
+					low = mid + 1;
+				} else if (cmp > 0) {
+					high = mid - 1;
+				} else {
+					byte[] data = new byte[getDataSize(header)];
+					dataFile.seek(dataFile.getFilePointer() - header[2]);
+					dataFile.readFully(data);
+					return new Message(header, data);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * retrieves {@link Message} sent by this {@link Element} by id.
+	 * timestamp in id selects the archive file and id is binary searched in it
+	 * 
+	 * @param id - ID of {@link Message}
+	 * @return {@link Message} or null if not found
+	 */
+	public Message getMessageById(String id) {
+		long timestamp = MessageIdGenerator.getTimestamp(id);
+		if (timestamp < 0)
+			return null;
+
+		File workingDirectory = new File(diskDirectory);
+		FilenameFilter filter = new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String fileName) {
+				return fileName.substring(0, name.length()).equals(name) && fileName.substring(fileName.indexOf(".")).equals(".idx");
+			}
+		};
+		File[] listOfFiles = workingDirectory.listFiles(filter);
+		if (listOfFiles == null || listOfFiles.length == 0)
+			return null;
+		Arrays.sort(listOfFiles, (f1, f2) -> Long.compare(getFileTimestamp(f1), getFileTimestamp(f2)));
+
+		int low = 0;
+		int high = listOfFiles.length - 1;
+		int last = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (getFileTimestamp(listOfFiles[mid]) <= timestamp) {
+				last = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		for (int i = last; i >= 0; i--) {
+			try {
+				Message message = findInFile(listOfFiles[i], id);
+				if (message != null)
+					return message;
+			} catch (Exception e) {
+				LoggingService.logWarning("Message Archive", e.getMessage());
+			}
+			if (getFileTimestamp(listOfFiles[i]) < timestamp)
+				break;
+		}
+		return null;
+	}
+
 	/**
 	 * retrieves list of {@link Message} sent by this {@link Element} within the time frame 
 	 * 
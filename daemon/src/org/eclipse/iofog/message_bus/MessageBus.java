@@ -12,9 +12,12 @@
  *******************************************************************************/
 package org.eclipse.iofog.message_bus;
 
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -42,12 +45,12 @@ public class MessageBus {
 	private Map<String, MessagePublisher> publishers;
 	private Map<String, MessageReceiver> receivers;
 	private MessageIdGenerator idGenerator;
+	private volatile SharedMemoryRegion sharedMemory;
+	private Map<String, List<Message>> undeliveredMessages = new HashMap<>();
 	private static MessageBus instance;
 	private ElementManager elementManager;
 	private Object updateLock = new Object();
 	
-	private long lastSpeedTime, lastSpeedMessageCount;
-	
 	private MessageBus() {
 	}
 	
@@ -88,14 +91,52 @@ public class MessageBus {
 		rec.disableRealTimeReceiving();
 	}
 
+	/**
+	 * pauses real-time {@link Message} receiving of an {@link Element},
+	 * messages stay in the bus queue until it is resumed
+	 * 
+	 * @param receiver - ID of {@link Element}
+	 */
+	public void pauseRealTimeReceiving(String receiver) {
+		MessageReceiver rec = receivers.get(receiver); 
+		if (rec != null)
+			rec.pauseRealTimeReceiving();
+	}
+
+	/**
+	 * resumes real-time {@link Message} receiving of an {@link Element}
+	 * 
+	 * @param receiver - ID of {@link Element}
+	 */
+	public void resumeRealTimeReceiving(String receiver) {
+		MessageReceiver rec = receivers.get(receiver); 
+		if (rec != null)
+			rec.resumeRealTimeReceiving();
+	}
+
+	/**
+	 * puts back list of {@link Message} which was received for an {@link Element}
+	 * but not delivered. they are delivered first by next real-time delivery or poll
+	 * 
+	 * @param receiver - ID of {@link Element}
+	 * @param messages - list of {@link Message} in delivery order
+	 */
+	public void requeueMessages(String receiver, List<Message> messages) {
+		if (messages.isEmpty())
+			return;
+		MessageReceiver rec = receivers.get(receiver);
+		if (rec != null)
+			rec.requeue(messages);
+		else
+			LoggingService.logWarning(MODULE_NAME, "receiver " + receiver + " not found, dropped "
+					+ messages.size() + " undelivered messages");
+	}
+
 	/**
 	 * initialize list of {@link Message} publishers and receivers
 	 * 
 	 */
 	private void init() {
-		lastSpeedMessageCount = 0;
-		lastSpeedTime = System.currentTimeMillis();
-		
 		routes = elementManager.getRoutes();
 		idGenerator = new MessageIdGenerator();
 		publishers = new ConcurrentHashMap<>();
@@ -133,29 +174,14 @@ public class MessageBus {
 							})));
 			});
 
-	}
-	
-	/**
-	 * calculates the average speed of {@link Message} moving through ioFog
-	 * 
-	 */
-	private final Runnable calculateSpeed = () -> {
-		while (true) {
-			try {
-				Thread.sleep(Constants.SPEED_CALCULATION_FREQ_MINUTES * 60 * 1000);
-
-				LoggingService.logInfo(MODULE_NAME, "calculating message processing speed");
+		undeliveredMessages.forEach((receiver, messages) -> {
+			MessageReceiver rec = receivers.get(receiver);
+			if (rec != null)
+				rec.requeue(messages);
+		});
+		undeliveredMessages.clear();
 
-				long now = System.currentTimeMillis();
-				long msgs = StatusReporter.getMessageBusStatus().getProcessedMessages();
-
-				float speed = ((float)(msgs - lastSpeedMessageCount)) / ((now - lastSpeedTime) / 1000f);
-				StatusReporter.setMessageBusStatus().setAverageSpeed(speed);
-				lastSpeedMessageCount = msgs;
-				lastSpeedTime = now;
-			} catch (Exception e) {}
-		}
-	};
+	}
 	
 	/**
 	 * monitors HornetQ server
@@ -169,7 +195,7 @@ public class MessageBus {
 				LoggingService.logInfo(MODULE_NAME, "check message bus server status");
 				if (!messageBusServer.isServerActive()) {
 					LoggingService.logWarning(MODULE_NAME, "server is not active. restarting...");
-					stop();
+					stopServer();
 					try {
 						messageBusServer.startServer();
 						LoggingService.logInfo(MODULE_NAME, "server restarted");
@@ -185,7 +211,7 @@ public class MessageBus {
 						LoggingService.logWarning(MODULE_NAME, "producer module for " + publisher + " stopped. restarting...");
 						entry.getValue().close();
 						Route route = routes.get(publisher);
-						if (route.equals(null) || route.getReceivers() == null || route.getReceivers().size() == 0) {
+						if (route == null || route.getReceivers() == null || route.getReceivers().size() == 0) {
 							publishers.remove(publisher);
 						} else {
 							try {
@@ -199,16 +225,25 @@ public class MessageBus {
 					}
 				});
 
+				receivers.values().forEach(MessageReceiver::releaseExpiredGroups);
+				SharedMemoryRegion region = sharedMemory;
+				if (region != null)
+					region.releaseExpired();
+				StatusReporter.setMessageBusStatus().setQueueDepth(messageBusServer.getQueueDepth());
+
 				receivers.entrySet().forEach(entry -> {
 					String receiver = entry.getKey();
 					if (messageBusServer.isConsumerClosed(receiver)) {
 						LoggingService.logWarning(MODULE_NAME, "consumer module for " + receiver + " stopped. restarting...");
-						entry.getValue().close();
+						List<Message> unacknowledged = entry.getValue().close();
 						try {
 							messageBusServer.createCosumer(receiver);
-							receivers.put(receiver, new MessageReceiver(receiver, messageBusServer.getConsumer(receiver)));
+							MessageReceiver newReceiver = new MessageReceiver(receiver, messageBusServer.getConsumer(receiver));
+							newReceiver.requeue(unacknowledged);
+							receivers.put(receiver, newReceiver);
 							LoggingService.logInfo(MODULE_NAME, "consumer module restarted");
 						} catch (Exception e) {
+							entry.getValue().requeue(unacknowledged);
 							LoggingService.logWarning(MODULE_NAME, "unable to restart consumer module for " + receiver + " --> " + e.getMessage());
 						}
 					}
@@ -226,60 +261,56 @@ public class MessageBus {
 	public void update() {
 		synchronized (updateLock) {
 			Map<String, Route> newRoutes = elementManager.getRoutes();
-			List<String> newPublishers = new ArrayList<>();
-			List<String> newReceivers = new ArrayList<>();
+			Map<String, Route> activeRoutes = new HashMap<>();
+			Set<String> newReceivers = new HashSet<>();
 			
-			if (newRoutes != null) {
-				newRoutes.entrySet()
-					.stream()
-					.filter(route -> route.getValue() != null)
-					.filter(route -> route.getValue().getReceivers() != null)
-					.forEach(entry -> {
-						newPublishers.add(entry.getKey());
-						newReceivers.addAll(entry.getValue().getReceivers()
-								.stream().filter(item -> !newReceivers.contains(item))
-								.collect(Collectors.toList()));
-					});
-			}
+			if (newRoutes != null)
+				newRoutes.forEach((publisher, route) -> {
+					if (route == null || route.getReceivers() == null)
+						return;
+					activeRoutes.put(publisher, route);
+					newReceivers.addAll(route.getReceivers());
+				});
 			
-			publishers.entrySet().forEach(entry -> {
-				if (!newPublishers.contains(entry.getKey())) {
+			for (Iterator<Map.Entry<String, MessagePublisher>> it = publishers.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<String, MessagePublisher> entry = it.next();
+				Route route = activeRoutes.get(entry.getKey());
+				if (route == null) {
+					it.remove();
 					entry.getValue().close();
 					messageBusServer.removeProducer(entry.getKey());
-				} else {
-					entry.getValue().updateRoute(newRoutes.get(entry.getKey()));
+				} else if (!route.equals(entry.getValue().getRoute())) {
+					entry.getValue().updateRoute(route);
 				}
+			}
+			activeRoutes.forEach((publisher, route) -> {
+				if (!publishers.containsKey(publisher))
+					publishers.put(publisher, new MessagePublisher(publisher, route, messageBusServer.getProducer(publisher)));
 			});
-			publishers.entrySet().removeIf(entry -> !newPublishers.contains(entry.getKey()));
-			publishers.putAll(
-					newPublishers.stream()
-					.filter(publisher -> !publishers.containsKey(publisher))
-					.collect(Collectors.toMap(publisher -> publisher, 
-							publisher -> new MessagePublisher(publisher, newRoutes.get(publisher), messageBusServer.getProducer(publisher)))));
 
-			receivers.entrySet().forEach(entry -> {
+			for (Iterator<Map.Entry<String, MessageReceiver>> it = receivers.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<String, MessageReceiver> entry = it.next();
 				if (!newReceivers.contains(entry.getKey())) {
-					entry.getValue().close();
+					it.remove();
+					int dropped = entry.getValue().close().size();
+					if (dropped > 0)
+						LoggingService.logWarning(MODULE_NAME, "receiver " + entry.getKey() + " removed, dropped "
+								+ dropped + " undelivered messages");
 					messageBusServer.removeConsumer(entry.getKey());
 				}
+			}
+			newReceivers.forEach(receiver -> {
+				if (!receivers.containsKey(receiver))
+					receivers.put(receiver, new MessageReceiver(receiver, messageBusServer.getConsumer(receiver)));
 			});
-			receivers.entrySet().removeIf(entry -> !newReceivers.contains(entry.getKey()));
-			receivers.putAll(
-					newReceivers.stream()
-					.filter(receiver -> !receivers.containsKey(receiver))
-					.collect(Collectors.toMap(receiver -> receiver, 
-							receiver -> new MessageReceiver(receiver, messageBusServer.getConsumer(receiver)))));
 
 			routes = newRoutes;
 
-			StatusReporter.getMessageBusStatus()
-				.getPublishedMessagesPerElement().entrySet().removeIf(entry -> {
-					return !elementManager.elementExists(entry.getKey());
-				});
-			elementManager.getElements().forEach(e -> {
-				if (!StatusReporter.getMessageBusStatus().getPublishedMessagesPerElement().entrySet().contains(e.getElementId()))
-						StatusReporter.getMessageBusStatus().getPublishedMessagesPerElement().put(e.getElementId(), 0l);
-			});
+			Set<String> elementIds = elementManager.getElements().stream()
+					.map(Element::getElementId)
+					.collect(Collectors.toSet());
+			StatusReporter.getMessageBusStatus().retainElements(elementIds);
+			elementIds.forEach(StatusReporter.getMessageBusStatus()::addElement);
 		}
 	}
 	
@@ -315,17 +346,42 @@ public class MessageBus {
 		LoggingService.logInfo(MODULE_NAME, "MESSAGE BUS SERVER STARTED");
 		init();
 
-		new Thread(calculateSpeed, "MessageBus : CalculateSpeed").start();
+		if (Constants.SHARED_MEMORY) {
+			try {
+				sharedMemory = SharedMemoryRegion.open();
+				LoggingService.logInfo(MODULE_NAME, "shared memory region " + sharedMemory.getPath());
+			} catch (Exception e) {
+				LoggingService.logWarning(MODULE_NAME, "unable to open shared memory region --> " + e.getMessage());
+			}
+		}
+
 		new Thread(checkMessageServerStatus, "MessageBus : CheckMessageBusServerStatus").start();
 	}
 	
 	/**
-	 * closes receivers and publishers and stops HornetQ server
+	 * stops Message Bus module and releases shared memory region
 	 * 
 	 */
 	public void stop() {
-		for (MessageReceiver receiver : receivers.values()) 
-			receiver.close();
+		stopServer();
+		if (sharedMemory != null) {
+			sharedMemory.close();
+			sharedMemory = null;
+		}
+	}
+
+	/**
+	 * closes receivers and publishers and stops HornetQ server
+	 * undelivered messages of receivers are handed to receivers created by next {@link #init()}
+	 * shared memory region is kept, messages may still carry its handles
+	 * 
+	 */
+	private void stopServer() {
+		for (MessageReceiver receiver : receivers.values()) {
+			List<Message> unacknowledged = receiver.close();
+			if (!unacknowledged.isEmpty())
+				undeliveredMessages.put(receiver.getName(), unacknowledged);
+		}
 		
 		for (MessagePublisher publisher : publishers.values())
 			publisher.close();
@@ -354,12 +410,31 @@ public class MessageBus {
 		return receivers.get(receiver);
 	}
 	
+	/**
+	 * returns shared memory region for large payloads
+	 * 
+	 * @return {@link SharedMemoryRegion} or null if it is not enabled
+	 */
+	public SharedMemoryRegion getSharedMemory() {
+		return sharedMemory;
+	}
+
+	/**
+	 * returns whether shared memory region is open, without starting Message Bus module
+	 * 
+	 * @return boolean
+	 */
+	public static boolean isSharedMemoryOpen() {
+		MessageBus messageBus = instance;
+		return messageBus != null && messageBus.sharedMemory != null;
+	}
+
 	/**
 	 * returns next generated message id
 	 * 
 	 * @return
 	 */
-	public synchronized String getNextId() {
+	public String getNextId() {
 		return idGenerator.getNextId();
 	}
 	
@@ -38,6 +38,7 @@ import org.hornetq.core.remoting.impl.netty.NettyAcceptorFactory;
 import org.hornetq.core.server.HornetQServer;
 import org.hornetq.core.server.HornetQServers;
 import org.hornetq.core.server.JournalType;
+import org.hornetq.core.server.Queue;
 import org.hornetq.core.settings.impl.AddressFullMessagePolicy;
 import org.hornetq.core.settings.impl.AddressSettings;
 
@@ -59,6 +60,19 @@ public class MessageBusServer {
 	private Map<String, ClientProducer> producers;
 	private ServerLocator serverLocator;
 	
+	/**
+	 * returns number of {@link ClientMessage} waiting in message bus queue
+	 * 
+	 * @return message count
+	 * @throws Exception
+	 */
+	protected long getQueueDepth() throws Exception {
+		if (server == null)
+			return 0;
+		Queue queue = server.locateQueue(new SimpleString(Constants.address));
+		return queue == null ? 0 : queue.getMessageCount();
+	}
+
 	protected boolean isServerActive() {
 		return server.isActive();
 	}
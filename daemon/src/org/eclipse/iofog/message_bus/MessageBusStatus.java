@@ -12,64 +12,140 @@
  *******************************************************************************/
 package org.eclipse.iofog.message_bus;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.json.Json;
 import javax.json.JsonArrayBuilder;
 import javax.json.JsonObjectBuilder;
 
+import org.eclipse.iofog.message_bus.RouteLatency.Stage;
+import org.eclipse.iofog.utils.RateMeter;
+
 /**
  * represents Message Bus status
+ * counters are safe to be updated from any publishing thread
  * 
  * @author saeid
  *
  */
 public class MessageBusStatus {
-	private long processedMessages;
-	private Map<String, Long> publishedMessagesPerElement;
-	private float averageSpeed;
+	private final LongAdder processedMessages;
+	private final Map<String, LongAdder> publishedMessagesPerElement;
+	private final RateMeter messageRate;
+	private final Map<String, RouteLatency> routeLatencies;
+	private volatile long queueDepth;
 	
 	public MessageBusStatus() {
-		publishedMessagesPerElement = new HashMap<>();
-		processedMessages = 0;
-		averageSpeed = 0;
+		publishedMessagesPerElement = new ConcurrentHashMap<>();
+		routeLatencies = new ConcurrentHashMap<>();
+		processedMessages = new LongAdder();
+		messageRate = new RateMeter();
 	}
 	
 	public long getProcessedMessages() {
-		return processedMessages;
+		return processedMessages.sum();
 	}
 
 	public Long getPublishedMessagesPerElement(String element) {
-		return publishedMessagesPerElement.get(element);
+		LongAdder counter = publishedMessagesPerElement.get(element);
+		return counter == null ? null : counter.sum();
 	}
 
+	/**
+	 * returns snapshot of published messages count of elements
+	 * 
+	 * @return map of element IDs and counts
+	 */
 	public Map<String, Long> getPublishedMessagesPerElement() {
-		return publishedMessagesPerElement;
+		Map<String, Long> result = new HashMap<>();
+		publishedMessagesPerElement.forEach((element, counter) -> result.put(element, counter.sum()));
+		return result;
 	}
 
 	public MessageBusStatus increasePublishedMessagesPerElement(String element) {
-		this.processedMessages++;
+		processedMessages.increment();
+		messageRate.mark();
 
-		Long n = this.publishedMessagesPerElement.get(element);
-		if (n == null)
-			n = 0l;
-		this.publishedMessagesPerElement.put(element, n + 1);
+		LongAdder counter = publishedMessagesPerElement.get(element);
+		if (counter == null)
+			counter = publishedMessagesPerElement.computeIfAbsent(element, key -> new LongAdder());
+		counter.increment();
 		return this;
 	}
 
+	/**
+	 * returns messages per second over last minute
+	 * 
+	 * @return rate
+	 */
 	public float getAverageSpeed() {
-		return averageSpeed;
+		return (float) messageRate.getOneMinuteRate();
+	}
+
+	public RateMeter getMessageRate() {
+		return messageRate;
+	}
+	
+	/**
+	 * records latency of a {@link Message} stage on a route
+	 * 
+	 * @param publisher - ID of publisher
+	 * @param receiver - ID of receiver
+	 * @param stage - {@link Stage}
+	 * @param publishTime - publish time of {@link Message} in nanoseconds
+	 */
+	public void recordLatency(String publisher, String receiver, Stage stage, long publishTime) {
+		if (publishTime == 0 || publisher == null || receiver == null)
+			return;
+		long latency = System.nanoTime() - publishTime;
+		String key = publisher + "->" + receiver;
+		RouteLatency routeLatency = routeLatencies.get(key);
+		if (routeLatency == null)
+			routeLatency = routeLatencies.computeIfAbsent(key, k -> new RouteLatency(publisher, receiver));
+		routeLatency.record(stage, latency);
 	}
 
-	public MessageBusStatus setAverageSpeed(float averageSpeed) {
-		this.averageSpeed = averageSpeed;
+	public Collection<RouteLatency> getRouteLatencies() {
+		return routeLatencies.values();
+	}
+
+	public String getJsonRouteLatencies() {
+		JsonArrayBuilder arrayBuilder = Json.createArrayBuilder();
+		routeLatencies.values().forEach(routeLatency -> arrayBuilder.add(routeLatency.toJson()));
+		return arrayBuilder.build().toString();
+	}
+
+	public long getQueueDepth() {
+		return queueDepth;
+	}
+
+	public MessageBusStatus setQueueDepth(long queueDepth) {
+		this.queueDepth = queueDepth;
 		return this;
 	}
+
+	public void addElement(String element) {
+		publishedMessagesPerElement.putIfAbsent(element, new LongAdder());
+	}
+
+	/**
+	 * removes counters of elements which do not exist anymore
+	 * 
+	 * @param elements - IDs of existing elements
+	 */
+	public void retainElements(Set<String> elements) {
+		publishedMessagesPerElement.keySet().retainAll(elements);
+		routeLatencies.values().removeIf(routeLatency -> 
+			!elements.contains(routeLatency.getPublisher()) || !elements.contains(routeLatency.getReceiver()));
+	}
 	
 	public void removePublishedMessagesPerElement(String element) {
-		if (publishedMessagesPerElement.containsKey(element))
-			publishedMessagesPerElement.remove(element);
+		publishedMessagesPerElement.remove(element);
 	}
 	
 	public String getJsonPublishedMessagesPerElement() {
@@ -77,7 +153,7 @@ public class MessageBusStatus {
 		publishedMessagesPerElement.entrySet().forEach(entry -> {
 			JsonObjectBuilder objectBuilder = Json.createObjectBuilder()
 					.add("id", entry.getKey())
-					.add("messagecount", entry.getValue());
+					.add("messagecount", entry.getValue().sum());
 			arrayBuilder.add(objectBuilder);
 					
 		});
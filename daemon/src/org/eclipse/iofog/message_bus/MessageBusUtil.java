@@ -13,11 +13,13 @@
 package org.eclipse.iofog.message_bus;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.iofog.element.Element;
 import org.eclipse.iofog.element.Route;
 import org.eclipse.iofog.status_reporter.StatusReporter;
+import org.eclipse.iofog.utils.Constants;
 import org.eclipse.iofog.utils.logging.LoggingService;
 
 public class MessageBusUtil {
@@ -35,10 +37,7 @@ public class MessageBusUtil {
 	 * @return published {@link Message} containing the id and timestamp 
 	 */
 	public void publishMessage(Message message) {
-		long timestamp = System.currentTimeMillis();
 		StatusReporter.setMessageBusStatus().increasePublishedMessagesPerElement(message.getPublisher());
-		message.setId(messageBus.getNextId());
-		message.setTimestamp(timestamp);
 		
 		MessagePublisher publisher = messageBus.getPublisher(message.getPublisher());
 		if (publisher != null) {
@@ -47,6 +46,9 @@ public class MessageBusUtil {
 			} catch (Exception e) {
 				LoggingService.logWarning("Message Publisher (" + publisher.getName() + ")", "unable to send message --> " + e.getMessage());
 			}
+		} else {
+			message.setId(messageBus.getNextId());
+			message.setTimestamp(MessageIdGenerator.getTimestamp(message.getId()));
 		}
 	}
 	
@@ -69,6 +71,39 @@ public class MessageBusUtil {
 		return messages;
 	}
 	
+	/**
+	 * gets list of {@link Message} for receiver under a lease
+	 * which must be acknowledged before it expires
+	 * 
+	 * @param receiver - ID of {@link Element}
+	 * @return {@link MessageLease} or null if there is no message
+	 */
+	public MessageLease leaseMessages(String receiver) {
+		MessageReceiver rec = messageBus.getReceiver(receiver); 
+		if (rec != null) {
+			try {
+				return rec.leaseMessages();
+			} catch (Exception e) {
+				LoggingService.logWarning("Message Receiver (" + receiver + ")", "unable to receive messages --> " + e.getMessage());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * acknowledges leases of receiver
+	 * 
+	 * @param receiver - ID of {@link Element}
+	 * @param leaseIds - IDs of {@link MessageLease}
+	 * @return number of acknowledged {@link Message}
+	 */
+	public int acknowledgeLeases(String receiver, Collection<String> leaseIds) {
+		MessageReceiver rec = messageBus.getReceiver(receiver); 
+		if (rec == null)
+			return 0;
+		return rec.acknowledgeLeases(leaseIds);
+	}
+
 	/**
 	 * gets list of {@link Message} within a time frame
 	 * 
@@ -88,5 +123,60 @@ public class MessageBusUtil {
 			return null;
 		return messagePublisher.messageQuery(from, to);
 	}
-	
+
+	/**
+	 * gets archived {@link Message} by id
+	 * 
+	 * @param publisher - ID of {@link Element}
+	 * @param receiver - ID of {@link Element}
+	 * @param id - ID of {@link Message}
+	 * @return {@link Message} or null if not found
+	 */
+	public Message getMessageById(String publisher, String receiver, String id) {
+		Route route = messageBus.getRoutes().get(publisher); 
+		if (route == null || !route.getReceivers().contains(receiver))
+			return null;
+
+		MessagePublisher messagePublisher = messageBus.getPublisher(publisher);
+		if (messagePublisher == null)
+			return null;
+		return messagePublisher.getMessageById(id);
+	}
+
+	/**
+	 * reserves shared memory for payload of publisher
+	 * 
+	 * @param publisher - ID of {@link Element}
+	 * @param length - payload length
+	 * @return {@link SharedMemoryHandle} or null if shared memory is not enabled or full
+	 */
+	public SharedMemoryHandle allocateSharedMemory(String publisher, int length) {
+		SharedMemoryRegion sharedMemory = messageBus.getSharedMemory();
+		if (sharedMemory == null || messageBus.getPublisher(publisher) == null)
+			return null;
+		return sharedMemory.allocate(publisher, length);
+	}
+
+	/**
+	 * drops reference of receiver to shared memory payload
+	 * 
+	 * @param receiver - ID of {@link Element}
+	 * @param handle - {@link SharedMemoryHandle}
+	 */
+	public void releaseSharedMemory(String receiver, SharedMemoryHandle handle) {
+		SharedMemoryRegion sharedMemory = messageBus.getSharedMemory();
+		if (sharedMemory != null && handle != null)
+			sharedMemory.release(handle, receiver);
+	}
+
+	/**
+	 * returns path of shared memory region in containers
+	 * 
+	 * @return path or null if shared memory is not enabled
+	 */
+	public String getSharedMemoryPath() {
+		if (messageBus.getSharedMemory() == null)
+			return null;
+		return Constants.SHARED_MEMORY_CONTAINER_DIR + "/" + Constants.SHARED_MEMORY_FILE_NAME;
+	}
 }
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.message_bus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.eclipse.iofog.element.RouteFilter;
+
+/**
+ * compiles {@link RouteFilter} into a {@link Predicate} evaluated 
+ * against each published {@link Message}
+ * 
+ * @author saeid
+ *
+ */
+public final class MessageFilter {
+
+	private MessageFilter() {
+	}
+
+	/**
+	 * builds {@link Predicate} of a {@link RouteFilter}
+	 * only configured conditions are checked
+	 * 
+	 * @param filter - {@link RouteFilter}
+	 * @return {@link Predicate} or null if filter has no condition
+	 */
+	public static Predicate<Message> compile(RouteFilter filter) {
+		if (filter == null)
+			return null;
+
+		List<Predicate<Message>> conditions = new ArrayList<>();
+		if (filter.getInfoTypes() != null && !filter.getInfoTypes().isEmpty()) {
+			Set<String> infoTypes = new HashSet<>(filter.getInfoTypes());
+			conditions.add(message -> infoTypes.contains(message.getInfoType()));
+		}
+		if (filter.getInfoFormats() != null && !filter.getInfoFormats().isEmpty()) {
+			Set<String> infoFormats = new HashSet<>(filter.getInfoFormats());
+			conditions.add(message -> infoFormats.contains(message.getInfoFormat()));
+		}
+		if (filter.getTags() != null && !filter.getTags().isEmpty()) {
+			Set<String> tags = new HashSet<>();
+			List<String> prefixes = new ArrayList<>();
+			for (String tag : filter.getTags()) {
+				if (tag.endsWith("*"))
+					prefixes.add(tag.substring(0, tag.length() - 1));
+				else
+					tags.add(tag);
+			}
+			conditions.add(message -> {
+				String tag = message.getTag();
+				if (tag == null)
+					return false;
+				if (tags.contains(tag))
+					return true;
+				for (String prefix : prefixes)
+					if (tag.startsWith(prefix))
+						return true;
+				return false;
+			});
+		}
+		long minSize = filter.getMinSize();
+		long maxSize = filter.getMaxSize();
+		if (minSize >= 0 || maxSize >= 0) {
+			conditions.add(message -> {
+				long size = message.getContentData() == null ? 0 : message.getContentData().length;
+				return (minSize < 0 || size >= minSize) && (maxSize < 0 || size <= maxSize);
+			});
+		}
+
+		if (conditions.isEmpty())
+			return null;
+		return conditions.stream().reduce(Predicate::and).get();
+	}
+}
@@ -12,99 +12,102 @@
  *******************************************************************************/
 package org.eclipse.iofog.message_bus;
 
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.UUID;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * class to generate unique id for {@link Message}
+ * id is 128 bits, time-ordered part followed by a random part picked once per process,
+ * encoded to 22 characters of base 58. ids of a process are increasing in both
+ * numeric and lexicographic order
  * 
  * @author saeid
  *
  */
 public class MessageIdGenerator {
-	private final char[] ALPHABETS_ARRAY = "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz123456789".toCharArray();
+	private static final char[] ALPHABETS_ARRAY = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+	private static final int BASE = ALPHABETS_ARRAY.length;
+	private static final int PART_LENGTH = 11;
+	private static final int ID_LENGTH = 2 * PART_LENGTH;
+	private static final int SEQUENCE_BITS = 20;
+
+	private final AtomicLong lastState = new AtomicLong();
+	private final char[] nodePart = new char[PART_LENGTH];
+	private final ThreadLocal<char[]> buffers = ThreadLocal.withInitial(() -> {
+		char[] buffer = new char[ID_LENGTH];
+		System.arraycopy(nodePart, 0, buffer, PART_LENGTH, PART_LENGTH);
+		return buffer;
+	});
+
+	public MessageIdGenerator() {
+		encode(new SecureRandom().nextLong(), nodePart, 0);
+	}
 
 	/**
-	 * converts base 10 to base 58
+	 * writes unsigned 64-bit number as fixed width base 58
 	 * 
 	 * @param number - number to be converted
-	 * @return base 58 presentation of number
+	 * @param buffer - destination
+	 * @param offset - position of first character in destination
 	 */
-	private String toBase58(long number) {
-		StringBuilder result = new StringBuilder();
-		while (number >= 58) {
-			result.append(ALPHABETS_ARRAY[(int) (number % 58)]);
-			number /= 58;
+	private static void encode(long number, char[] buffer, int offset) {
+		for (int i = offset + PART_LENGTH - 1; i >= offset; i--) {
+			buffer[i] = ALPHABETS_ARRAY[(int) Long.remainderUnsigned(number, BASE)];
+			number = Long.divideUnsigned(number, BASE);
 		}
-		result.append(ALPHABETS_ARRAY[(int) number]);
-		return result.reverse().toString();
 	}
 
-	
-	private final int MAX_SEQUENCE = 100000000;
-	private volatile long lastTime = 0;
-	private volatile int sequence = MAX_SEQUENCE;
 	/**
-	 * generates unique id based on time and sequence  
+	 * returns next time-ordered state
+	 * milliseconds in high bits and sequence in low bits. if sequence of
+	 * a millisecond is used up or clock goes back, time part moves forward
 	 * 
-	 * @param time - timestamp in milliseconds
+	 * @return state
 	 */
-	public synchronized String generate(long time) {
-		if (lastTime == time) {
-			sequence--;
-		} else {
-			lastTime = time;
-			sequence = MAX_SEQUENCE;
+	private long nextState() {
+		long now = System.currentTimeMillis() << SEQUENCE_BITS;
+		while (true) {
+			long last = lastState.get();
+			long next = Math.max(now, last + 1);
+			if (lastState.compareAndSet(last, next))
+				return next;
 		}
-		return toBase58(time) + toBase58(sequence);
 	}
 
-	
-	// uuid
-	private final int PRE_GENERATED_IDS_COUNT = 100_000;
-	private boolean isRefilling = false;
-	Queue<String> generatedIds = new LinkedList<>();
 	/**
-	 * generates unique id based on UUID
+	 * returns next unique id
 	 * 
+	 * @return id
 	 */
-	private final Runnable refill = () -> {
-		if (isRefilling)
-			return;
-		isRefilling = true;
-		while (generatedIds.size() < PRE_GENERATED_IDS_COUNT)
-			synchronized (generatedIds) {
-				generatedIds.offer(UUID.randomUUID().toString().replaceAll("-", ""));
-			}
-		isRefilling = false;
-	};
-	
+	public String getNextId() {
+		char[] buffer = buffers.get();
+		encode(nextState(), buffer, 0);
+		return new String(buffer);
+	}
+
 	/**
-	 * returns next generated id from list
+	 * returns time in milliseconds the id has been generated at
 	 * 
-	 * @return id
+	 * @param id - id generated by {@link MessageIdGenerator}
+	 * @return timestamp or -1 if id is not time-ordered
 	 */
-	public String getNextId() {
-		while (generatedIds.size() == 0);
-		synchronized (generatedIds) {
-			return generatedIds.poll();
+	public static long getTimestamp(String id) {
+		if (id == null || id.length() != ID_LENGTH)
+			return -1;
+		long number = 0;
+		for (int i = 0; i < PART_LENGTH; i++) {
+			int digit = indexOf(id.charAt(i));
+			if (digit < 0)
+				return -1;
+			number = number * BASE + digit;
 		}
+		return number >>> SEQUENCE_BITS;
 	}
-	
-	public MessageIdGenerator() {
-		ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-		scheduler.scheduleAtFixedRate(refill, 0, 5, TimeUnit.SECONDS);
+
+	private static int indexOf(char c) {
+		for (int i = 0; i < BASE; i++)
+			if (ALPHABETS_ARRAY[i] == c)
+				return i;
+		return -1;
 	}
-	
-//			 			 1         2         3         4         5         6         7         8         9         0         1         2         3         4         5         6         7         
-//  			12345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789
-//  Double:		uWJ7hf5NAL7ufAjUbfwAfAwuwQfLNN9y9wyUQy5syYE3W9qJsWC3bEQu7WYUWJyUYNu3EbSfbCLWwdNsGsEYuqY35h79YoSqYh7bfYWGGNmWqYyWoummsdwodoqLyjGSwyfWhu3hb1Q1J9wWhdUbJufo9AACYJyuYG3E5mmTre6jpcs
-//	Float:		319jQQdmU33UhsMFqAEuBx
-//  Long:		XZvFwUyHzQM
-//	Integer:	DRvaEH
-//	Elements:	rv8H3m2fdzKJrKNVGftmWFYDbvgb3tpv
 }
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.message_bus;
+
+import java.util.List;
+
+/**
+ * batch of {@link Message} handed to a pull receiver
+ * which stays redeliverable until it is acknowledged
+ *
+ * @author saeid
+ *
+ */
+public class MessageLease {
+	private final String id;
+	private final List<Message> messages;
+	private final long expiryTime;
+
+	public MessageLease(String id, List<Message> messages, long expiryTime) {
+		this.id = id;
+		this.messages = messages;
+		this.expiryTime = expiryTime;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public List<Message> getMessages() {
+		return messages;
+	}
+
+	public long getExpiryTime() {
+		return expiryTime;
+	}
+
+	public boolean isExpired(long now) {
+		return now >= expiryTime;
+	}
+}
@@ -24,9 +24,11 @@ import org.hornetq.api.core.client.MessageHandler;
  */
 public class MessageListener implements MessageHandler{
 	private final MessageCallback callback;
+	private final MessageReceiver receiver;
 	
-	public MessageListener(MessageCallback callback) {
+	public MessageListener(MessageCallback callback, MessageReceiver receiver) {
 		this.callback = callback;
+		this.receiver = receiver;
 	}
 	
 	@Override
@@ -35,7 +37,16 @@ public class MessageListener implements MessageHandler{
 			msg.acknowledge();
 		} catch (Exception e) {}
 		
-		Message message = new Message(msg.getBytesProperty("message"));
+		for (Message message : receiver.reassemble(msg))
+			deliver(message);
+	}
+
+	/**
+	 * sends {@link Message} to the receiver
+	 * 
+	 * @param message - {@link Message} to be delivered
+	 */
+	protected void deliver(Message message) {
 		callback.sendRealtimeMessage(message);
 	}
 
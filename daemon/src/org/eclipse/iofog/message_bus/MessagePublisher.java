@@ -12,10 +12,18 @@
  *******************************************************************************/
 package org.eclipse.iofog.message_bus;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 import org.eclipse.iofog.element.Element;
 import org.eclipse.iofog.element.Route;
+import org.eclipse.iofog.message_bus.RouteLatency.Stage;
+import org.eclipse.iofog.status_reporter.StatusReporter;
+import org.eclipse.iofog.utils.Constants.ReassemblyMode;
 import org.eclipse.iofog.utils.logging.LoggingService;
 import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.api.core.client.ClientProducer;
@@ -32,11 +40,11 @@ public class MessagePublisher {
 	private final String name;
 	private ClientProducer producer;
 	private ClientSession session;
-	private Route route;
+	private volatile RoutingTable routing;
 	
 	public MessagePublisher(String name, Route route, ClientProducer producer) {
 		this.archive = new MessageArchive(name);
-		this.route = route;
+		this.routing = new RoutingTable(route);
 		this.name = name;
 		this.producer = producer;
 		this.session = MessageBusServer.getSession();
@@ -47,12 +55,17 @@ public class MessagePublisher {
 	}
 
 	/**
-	 * publishes a {@link Message}
+	 * sets id and timestamp and publishes a {@link Message}
+	 * ids are assigned under lock to keep archive in id order
 	 * 
 	 * @param message - {@link Message} to be published
 	 * @throws Exception
 	 */
 	protected synchronized void publish(Message message) throws Exception {
+		long publishTime = System.nanoTime();
+		message.setPublishTime(publishTime);
+		message.setId(MessageBus.getInstance().getNextId());
+		message.setTimestamp(MessageIdGenerator.getTimestamp(message.getId()));
 		byte[] bytes = message.getBytes();
 
 		try {
@@ -60,11 +73,35 @@ public class MessagePublisher {
 		} catch (Exception e) {
 			LoggingService.logWarning("Message Publisher (" + this.name + ")", "unable to archive massage --> " + e.getMessage());
 		}
+		RoutingTable routing = this.routing;
+		Route route = routing.route;
+		List<String> receivers = new ArrayList<>(route.getReceivers().size());
 		for (String receiver : route.getReceivers()) {
+			Predicate<Message> filter = routing.filters.get(receiver);
+			if (filter == null || filter.test(message))
+				receivers.add(receiver);
+		}
+
+		SharedMemoryRegion sharedMemory = MessageBus.getInstance().getSharedMemory();
+		SharedMemoryHandle handle = SharedMemoryHandle.fromMessage(message);
+		if (handle != null && sharedMemory != null && !sharedMemory.publish(handle, name, receivers))
+			LoggingService.logWarning("Message Publisher (" + this.name + ")", "shared memory handle is not allocated to publisher");
+
+		for (String receiver : receivers) {
 			ClientMessage msg = session.createMessage(false);
 			msg.putObjectProperty("receiver", receiver);
 			msg.putBytesProperty("message", bytes);
+			msg.putLongProperty("publishtime", publishTime);
+			if (message.getMessageGroupId() != null) {
+				ReassemblyMode mode = route.getReassemblyMode(receiver);
+				// parts carrying handles are released one by one, joined handles could not be parsed
+				if (handle != null && mode == ReassemblyMode.ASSEMBLED)
+					mode = ReassemblyMode.ORDERED;
+				if (mode != null)
+					msg.putStringProperty("reassembly", mode.name());
+			}
 			producer.send(msg);
+			StatusReporter.getMessageBusStatus().recordLatency(name, receiver, Stage.ENQUEUE, publishTime);
 		}
 	}
 	
@@ -73,8 +110,18 @@ public class MessagePublisher {
 		this.producer = producer;
 	}
 	
+	/**
+	 * replaces {@link Route} of publisher
+	 * publishes in progress keep using previous {@link Route}
+	 * 
+	 * @param route - new {@link Route}
+	 */
 	protected void updateRoute(Route route) {
-		this.route = route;
+		this.routing = new RoutingTable(route);
+	}
+
+	protected Route getRoute() {
+		return routing.route;
 	}
 
 	public void close() {
@@ -94,5 +141,36 @@ public class MessagePublisher {
 	public synchronized List<Message> messageQuery(long from, long to) {
 		return archive.messageQuery(from, to);
 	}
+
+	/**
+	 * retrieves archived {@link Message} published by this {@link Element}
+	 * 
+	 * @param id - ID of {@link Message}
+	 * @return {@link Message} or null if not found
+	 */
+	public synchronized Message getMessageById(String id) {
+		return archive.getMessageById(id);
+	}
+
+	/**
+	 * immutable {@link Route} of publisher with compiled filters of receivers
+	 * 
+	 */
+	private static class RoutingTable {
+		private final Route route;
+		private final Map<String, Predicate<Message>> filters;
+
+		private RoutingTable(Route route) {
+			this.route = route;
+			Map<String, Predicate<Message>> filters = new HashMap<>();
+			if (route != null && route.getFilters() != null)
+				route.getFilters().forEach((receiver, filter) -> {
+					Predicate<Message> predicate = MessageFilter.compile(filter);
+					if (predicate != null)
+						filters.put(receiver, predicate);
+				});
+			this.filters = Collections.unmodifiableMap(filters);
+		}
+	}
 	
 }
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.message_bus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.iofog.element.Element;
+import org.eclipse.iofog.utils.Constants;
+import org.eclipse.iofog.utils.Constants.ReassemblyMode;
+
+/**
+ * buffers parts of {@link Message} groups for a receiver {@link Element}
+ * and releases them in sequence order or as one assembled {@link Message}.
+ * groups which are not completed in time or do not fit in the buffer
+ * are released as they are
+ *
+ * @author saeid
+ *
+ */
+public class MessageReassembler {
+	private final int MAXIMUM_GROUP_SIZE = 65_536;
+
+	private final Map<String, MessageGroup> groups;
+	private long bufferedBytes;
+
+	public MessageReassembler() {
+		groups = new LinkedHashMap<>();
+		bufferedBytes = 0;
+	}
+
+	/**
+	 * buffers a part of {@link Message} group
+	 *
+	 * @param message - received {@link Message}
+	 * @param mode - {@link ReassemblyMode} of the route
+	 * @return list of {@link Message} ready to be delivered
+	 */
+	public synchronized List<Message> offer(Message message, ReassemblyMode mode) {
+		int total = message.getSequenceTotal();
+		int number = message.getSequenceNumber();
+		if (mode == null || message.getMessageGroupId() == null || total < 2 || total > MAXIMUM_GROUP_SIZE
+				|| number < 1 || number > total)
+			return Collections.singletonList(message);
+
+		List<Message> result = new ArrayList<>();
+		String key = message.getPublisher() + ":" + message.getMessageGroupId();
+		MessageGroup group = groups.get(key);
+		if (group == null || group.parts.length != total) {
+			if (group != null)
+				result.addAll(drain(groups.remove(key)));
+			group = new MessageGroup(total, mode);
+			groups.put(key, group);
+		}
+
+		if (number <= group.released || group.parts[number - 1] != null)
+			return result;
+
+		group.parts[number - 1] = message;
+		group.received++;
+		long size = getSize(message);
+		group.bytes += size;
+		bufferedBytes += size;
+
+		if (group.mode == ReassemblyMode.ORDERED) {
+			while (group.released < total && group.parts[group.released] != null) {
+				Message part = group.parts[group.released];
+				group.parts[group.released] = null;
+				group.released++;
+				group.bytes -= getSize(part);
+				bufferedBytes -= getSize(part);
+				result.add(part);
+			}
+			if (group.released == total)
+				groups.remove(key);
+		} else if (group.received == total) {
+			groups.remove(key);
+			bufferedBytes -= group.bytes;
+			result.add(assemble(group.parts));
+		}
+
+		Iterator<String> oldest = groups.keySet().iterator();
+		while (bufferedBytes > Constants.REASSEMBLY_MAX_BUFFER_BYTES && oldest.hasNext()) {
+			String oldestKey = oldest.next();
+			result.addAll(drain(groups.get(oldestKey)));
+			oldest.remove();
+		}
+		return result;
+	}
+
+	/**
+	 * releases parts of groups which are not completed in time
+	 *
+	 * @return list of {@link Message} ready to be delivered
+	 */
+	public synchronized List<Message> releaseExpired() {
+		if (groups.isEmpty())
+			return Collections.emptyList();
+
+		long expiryTime = System.currentTimeMillis() - Constants.REASSEMBLY_TIMEOUT_SECONDS * 1000;
+		List<Message> result = new ArrayList<>();
+		for (Iterator<MessageGroup> it = groups.values().iterator(); it.hasNext();) {
+			MessageGroup group = it.next();
+			if (group.firstArrivalTime > expiryTime)
+				break;
+			result.addAll(drain(group));
+			it.remove();
+		}
+		return result;
+	}
+
+	/**
+	 * releases parts of all groups as they are
+	 *
+	 * @return list of {@link Message}
+	 */
+	public synchronized List<Message> releaseAll() {
+		List<Message> result = new ArrayList<>();
+		for (MessageGroup group : groups.values())
+			result.addAll(drain(group));
+		groups.clear();
+		bufferedBytes = 0;
+		return result;
+	}
+
+	/**
+	 * returns buffered parts of group in sequence order
+	 *
+	 * @param group - {@link MessageGroup}
+	 * @return list of {@link Message}
+	 */
+	private List<Message> drain(MessageGroup group) {
+		List<Message> result = new ArrayList<>();
+		for (Message part : group.parts)
+			if (part != null)
+				result.add(part);
+		bufferedBytes -= group.bytes;
+		return result;
+	}
+
+	/**
+	 * builds one {@link Message} from all parts of a group.
+	 * header of the first part is kept and contents are concatenated
+	 *
+	 * @param parts - parts of group in sequence order
+	 * @return assembled {@link Message}
+	 */
+	private Message assemble(Message[] parts) {
+		int length = 0;
+		for (Message part : parts)
+			if (part.getContentData() != null)
+				length += part.getContentData().length;
+
+		byte[] content = new byte[length];
+		int pos = 0;
+		for (Message part : parts) {
+			byte[] data = part.getContentData();
+			if (data == null)
+				continue;
+			System.arraycopy(data, 0, content, pos, data.length);
+			pos += data.length;
+		}
+
+		Message result = parts[0];
+		result.setContentData(content);
+		result.setSequenceNumber(1);
+		result.setSequenceTotal(1);
+		return result;
+	}
+
+	private long getSize(Message message) {
+		long size = 0;
+		if (message.getContentData() != null)
+			size += message.getContentData().length;
+		if (message.getContextData() != null)
+			size += message.getContextData().length;
+		return size;
+	}
+
+	private static class MessageGroup {
+		private final Message[] parts;
+		private final ReassemblyMode mode;
+		private final long firstArrivalTime;
+		private int received;
+		private int released;
+		private long bytes;
+
+		private MessageGroup(int total, ReassemblyMode mode) {
+			this.parts = new Message[total];
+			this.mode = mode;
+			this.firstArrivalTime = System.currentTimeMillis();
+		}
+	}
+}
@@ -12,11 +12,23 @@
  *******************************************************************************/
 package org.eclipse.iofog.message_bus;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.iofog.element.Element;
 import org.eclipse.iofog.local_api.MessageCallback;
+import org.eclipse.iofog.message_bus.RouteLatency.Stage;
+import org.eclipse.iofog.status_reporter.StatusReporter;
+import org.eclipse.iofog.utils.Constants;
+import org.eclipse.iofog.utils.Constants.ReassemblyMode;
 import org.hornetq.api.core.client.ClientConsumer;
 import org.hornetq.api.core.client.ClientMessage;
 
@@ -31,11 +43,19 @@ public class MessageReceiver {
 
 	private MessageListener listener;
 	private ClientConsumer consumer;
+	private final Map<String, MessageLease> leases;
+	private int leasedMessagesCount;
+	private final MessageReassembler reassembler;
+	private final Deque<Message> pendingMessages;
 
 	public MessageReceiver(String name, ClientConsumer consumer) {
 		this.name = name;
 		this.consumer = consumer;
 		this.listener = null;
+		this.leases = new LinkedHashMap<>();
+		this.leasedMessagesCount = 0;
+		this.reassembler = new MessageReassembler();
+		this.pendingMessages = new ArrayDeque<>();
 	}
 
 	/**
@@ -46,6 +66,7 @@ public class MessageReceiver {
 	 */
 	protected synchronized List<Message> getMessages() throws Exception {
 		List<Message> result = new ArrayList<>();
+		pendingMessages.addAll(reassembler.releaseExpired());
 		
 		if (consumer != null || listener == null) {
 			Message message = getMessage();
@@ -57,6 +78,81 @@ public class MessageReceiver {
 		return result;
 	}
 
+	/**
+	 * receives list of {@link Message} sent to this {@link Element} under a lease.
+	 * messages of expired leases are redelivered first and messages stay 
+	 * in the bus queue while too many messages are waiting for acknowledgement
+	 * 
+	 * @return {@link MessageLease} or null if there is no message to deliver
+	 * @throws Exception
+	 */
+	protected synchronized MessageLease leaseMessages() throws Exception {
+		long now = System.currentTimeMillis();
+		List<Message> result = new ArrayList<>();
+		pendingMessages.addAll(reassembler.releaseExpired());
+
+		for (Iterator<MessageLease> it = leases.values().iterator(); it.hasNext();) {
+			MessageLease lease = it.next();
+			if (!lease.isExpired(now))
+				continue;
+			it.remove();
+			leasedMessagesCount -= lease.getMessages().size();
+			result.addAll(lease.getMessages());
+		}
+
+		while (leasedMessagesCount + result.size() < Constants.MAX_LEASED_MESSAGES_PER_RECEIVER) {
+			Message message = getMessage();
+			if (message == null)
+				break;
+			result.add(message);
+		}
+
+		if (result.isEmpty())
+			return null;
+
+		MessageLease lease = new MessageLease(MessageBus.getInstance().getNextId(), result,
+				now + Constants.MESSAGE_LEASE_TIMEOUT_SECONDS * 1000);
+		leases.put(lease.getId(), lease);
+		leasedMessagesCount += result.size();
+		return lease;
+	}
+
+	/**
+	 * commits leased messages so they will not be redelivered
+	 * 
+	 * @param leaseIds - IDs of {@link MessageLease} to be acknowledged
+	 * @return number of acknowledged {@link Message}
+	 */
+	protected synchronized int acknowledgeLeases(Collection<String> leaseIds) {
+		int count = 0;
+		for (String leaseId : leaseIds) {
+			MessageLease lease = leases.remove(leaseId);
+			if (lease == null)
+				continue;
+			count += lease.getMessages().size();
+			lease.getMessages().forEach(message -> {
+				StatusReporter.getMessageBusStatus().recordLatency(message.getPublisher(), name, Stage.ACK, message.getPublishTime());
+				releaseSharedMemory(message);
+			});
+		}
+		leasedMessagesCount -= count;
+		return count;
+	}
+
+	/**
+	 * drops reference of this {@link Element} to shared memory payload of {@link Message}
+	 * 
+	 * @param message - acknowledged {@link Message}
+	 */
+	protected void releaseSharedMemory(Message message) {
+		SharedMemoryRegion sharedMemory = MessageBus.getInstance().getSharedMemory();
+		if (sharedMemory == null)
+			return;
+		SharedMemoryHandle handle = SharedMemoryHandle.fromMessage(message);
+		if (handle != null)
+			sharedMemory.release(handle, name);
+	}
+
 	/**
 	 * receives only one {@link Message}
 	 * 
@@ -67,13 +163,66 @@ public class MessageReceiver {
 		if (consumer == null || listener != null)
 			return null;
 
-		Message result = null; 
-		ClientMessage msg = consumer.receiveImmediate();
-		if (msg != null) {
+		while (pendingMessages.isEmpty()) {
+			ClientMessage msg = consumer.receiveImmediate();
+			if (msg == null)
+				return null;
 			msg.acknowledge();
-			result = new Message(msg.getBytesProperty("message"));
+			pendingMessages.addAll(reassemble(msg));
 		}
-		return result;
+		return pendingMessages.poll();
+	}
+
+	/**
+	 * passes received {@link ClientMessage} through reassembly stage 
+	 * if its route asks for it
+	 * 
+	 * @param msg - {@link ClientMessage} received from bus
+	 * @return list of {@link Message} ready to be delivered
+	 */
+	protected List<Message> reassemble(ClientMessage msg) {
+		Message message = new Message(msg.getBytesProperty("message"));
+		if (msg.containsProperty("publishtime")) {
+			message.setPublishTime(msg.getLongProperty("publishtime"));
+			StatusReporter.getMessageBusStatus().recordLatency(message.getPublisher(), name, Stage.DEQUEUE, message.getPublishTime());
+		}
+		String mode = msg.getStringProperty("reassembly");
+		if (mode == null)
+			return Collections.singletonList(message);
+		return reassembler.offer(message, ReassemblyMode.valueOf(mode));
+	}
+
+	/**
+	 * releases parts of message groups which are not completed in time
+	 * 
+	 */
+	protected void releaseExpiredGroups() {
+		List<Message> expired = reassembler.releaseExpired();
+		if (expired.isEmpty())
+			return;
+		MessageListener currentListener = listener;
+		if (currentListener != null)
+			expired.forEach(currentListener::deliver);
+		else
+			synchronized (this) {
+				pendingMessages.addAll(expired);
+			}
+	}
+
+	/**
+	 * puts back {@link Message} list which was received from bus but not delivered.
+	 * they are delivered before next messages of bus queue, merged with other 
+	 * pending messages in publish order as ids are time-ordered
+	 * 
+	 * @param messages - list of {@link Message}
+	 */
+	protected synchronized void requeue(List<Message> messages) {
+		List<Message> merged = new ArrayList<>(pendingMessages.size() + messages.size());
+		merged.addAll(pendingMessages);
+		merged.addAll(messages);
+		merged.sort(Comparator.comparing(Message::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+		pendingMessages.clear();
+		pendingMessages.addAll(merged);
 	}
 
 	protected String getName() {
@@ -87,7 +236,14 @@ public class MessageReceiver {
 	protected void enableRealTimeReceiving() {
 		if (consumer == null || consumer.isClosed())
 			return;
-		listener = new MessageListener(new MessageCallback(name));
+		MessageListener newListener = new MessageListener(new MessageCallback(name), this);
+		List<Message> pending;
+		synchronized (this) {
+			pending = new ArrayList<>(pendingMessages);
+			pendingMessages.clear();
+			listener = newListener;
+		}
+		pending.forEach(newListener::deliver);
 		try {
 			consumer.setMessageHandler(listener);
 		} catch (Exception e) {
@@ -101,19 +257,69 @@ public class MessageReceiver {
 	 */
 	protected void disableRealTimeReceiving() {
 		try {
-			if (consumer == null || listener == null || consumer.getMessageHandler() == null)
+			if (consumer == null || listener == null)
 				return;
 			listener = null;
 			consumer.setMessageHandler(null);
 		} catch (Exception e) {}
 	}
 	
-	protected void close() {
-		if (consumer == null)
-			return;
-		disableRealTimeReceiving();
+	/**
+	 * stops real-time delivery while the receiver can not take more messages,
+	 * next messages stay in the bus queue
+	 * 
+	 */
+	protected void pauseRealTimeReceiving() {
 		try {
-			consumer.close();
+			if (consumer == null || listener == null)
+				return;
+			consumer.setMessageHandler(null);
 		} catch (Exception e) {}
 	}
+	
+	/**
+	 * restarts real-time delivery stopped by {@link #pauseRealTimeReceiving()}
+	 * messages put back meanwhile are delivered first
+	 * 
+	 */
+	protected void resumeRealTimeReceiving() {
+		try {
+			MessageListener currentListener = listener;
+			if (consumer == null || currentListener == null || consumer.isClosed())
+				return;
+			List<Message> pending;
+			synchronized (this) {
+				pending = new ArrayList<>(pendingMessages);
+				pendingMessages.clear();
+			}
+			pending.forEach(currentListener::deliver);
+			consumer.setMessageHandler(currentListener);
+		} catch (Exception e) {}
+	}
+	
+	/**
+	 * closes consumer of this {@link Element}
+	 * messages received from bus are already acknowledged there, so leased, 
+	 * pending and buffered group parts are returned to be handed to next receiver
+	 * 
+	 * @return list of unacknowledged {@link Message}
+	 */
+	protected List<Message> close() {
+		List<Message> unacknowledged = new ArrayList<>();
+		disableRealTimeReceiving();
+		synchronized (this) {
+			leases.values().forEach(lease -> unacknowledged.addAll(lease.getMessages()));
+			leases.clear();
+			leasedMessagesCount = 0;
+			unacknowledged.addAll(pendingMessages);
+			pendingMessages.clear();
+		}
+		unacknowledged.addAll(reassembler.releaseAll());
+		if (consumer != null) {
+			try {
+				consumer.close();
+			} catch (Exception e) {}
+		}
+		return unacknowledged;
+	}
 }
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.message_bus;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+
+import org.eclipse.iofog.element.Element;
+import org.eclipse.iofog.utils.LatencyHistogram;
+
+/**
+ * latencies of {@link Message} moving from a publisher {@link Element} 
+ * to a receiver {@link Element}. each stage is measured from publish 
+ * 
+ * @author saeid
+ *
+ */
+public class RouteLatency {
+	public enum Stage {
+		ENQUEUE, DEQUEUE, WRITE, ACK
+	}
+
+	private final String publisher;
+	private final String receiver;
+	private final Map<Stage, LatencyHistogram> histograms;
+
+	public RouteLatency(String publisher, String receiver) {
+		this.publisher = publisher;
+		this.receiver = receiver;
+		this.histograms = new EnumMap<>(Stage.class);
+		for (Stage stage : Stage.values())
+			histograms.put(stage, new LatencyHistogram());
+	}
+
+	public String getPublisher() {
+		return publisher;
+	}
+
+	public String getReceiver() {
+		return receiver;
+	}
+
+	public LatencyHistogram getHistogram(Stage stage) {
+		return histograms.get(stage);
+	}
+
+	public void record(Stage stage, long nanos) {
+		histograms.get(stage).record(nanos);
+	}
+
+	public JsonObjectBuilder toJson() {
+		JsonObjectBuilder builder = Json.createObjectBuilder()
+				.add("publisher", publisher)
+				.add("receiver", receiver);
+		histograms.forEach((stage, histogram) -> builder.add(stage.name().toLowerCase(), histogram.toJson()));
+		return builder;
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.message_bus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * reference to a payload in {@link SharedMemoryRegion}.
+ * a {@link Message} carries the handle as its content instead of the payload
+ * and is marked by {@link #INFO_FORMAT} as its info format.
+ *
+ * content layout (big endian) :
+ * 4 bytes magic "IOSM", 8 bytes offset, 4 bytes length, 8 bytes generation
+ *
+ * @author saeid
+ *
+ */
+public class SharedMemoryHandle {
+	public static final int BYTES = 24;
+	public static final String INFO_FORMAT = "iofog/shm-handle";
+	private static final int MAGIC = 0x494F534D;
+
+	private final long offset;
+	private final int length;
+	private final long generation;
+
+	public SharedMemoryHandle(long offset, int length, long generation) {
+		this.offset = offset;
+		this.length = length;
+		this.generation = generation;
+	}
+
+	/**
+	 * returns handle carried by content of {@link Message}
+	 *
+	 * @param message - {@link Message}
+	 * @return {@link SharedMemoryHandle} or null if message is not marked as handle
+	 * 			or content is not a handle
+	 */
+	public static SharedMemoryHandle fromMessage(Message message) {
+		if (message == null || !INFO_FORMAT.equals(message.getInfoFormat()))
+			return null;
+		return fromBytes(message.getContentData());
+	}
+
+	/**
+	 * parses handle
+	 *
+	 * @param content - handle bytes
+	 * @return {@link SharedMemoryHandle} or null if content is not a handle
+	 */
+	public static SharedMemoryHandle fromBytes(byte[] content) {
+		if (content == null || content.length != BYTES)
+			return null;
+		ByteBuffer buffer = ByteBuffer.wrap(content);
+		if (buffer.getInt() != MAGIC)
+			return null;
+		return new SharedMemoryHandle(buffer.getLong(), buffer.getInt(), buffer.getLong());
+	}
+
+	public byte[] getBytes() {
+		return ByteBuffer.allocate(BYTES)
+				.putInt(MAGIC)
+				.putLong(offset)
+				.putInt(length)
+				.putLong(generation)
+				.array();
+	}
+
+	/**
+	 * offset of payload in region file
+	 *
+	 * @return long
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * generation of allocation, also written in 8 bytes before the payload
+	 * while the allocation is alive
+	 *
+	 * @return long
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+}
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.message_bus;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.iofog.element.Element;
+import org.eclipse.iofog.utils.Constants;
+
+/**
+ * memory-mapped file shared with containers for large payloads.
+ * publisher allocates space, writes payload and publishes a {@link Message}
+ * carrying {@link SharedMemoryHandle}. allocation is freed when all receivers
+ * of the route acknowledged the {@link Message} or its timeout expires.
+ *
+ * each allocation starts with 8 bytes generation followed by payload.
+ * generation is cleared when allocation is freed, so a reader can detect
+ * reclaimed payload by checking generation before and after reading it.
+ *
+ * @author saeid
+ *
+ */
+public class SharedMemoryRegion {
+	private static final int HEADER_BYTES = Long.BYTES;
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final MappedByteBuffer buffer;
+	private final int blockSize;
+	private final int blockCount;
+	private final BitSet usedBlocks;
+	private final Map<Long, Allocation> allocations;
+	private long nextGeneration;
+	private long usedBytes;
+
+	private SharedMemoryRegion(File file, long size, int blockSize) throws Exception {
+		this.file = file;
+		this.blockSize = blockSize;
+		this.blockCount = (int) (size / blockSize);
+		this.raf = new RandomAccessFile(file, "rw");
+		this.raf.setLength((long) blockCount * blockSize);
+		this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) blockCount * blockSize);
+		this.usedBlocks = new BitSet(blockCount);
+		this.allocations = new HashMap<>();
+		this.nextGeneration = System.currentTimeMillis() << 20;
+	}
+
+	/**
+	 * creates region file and maps it to memory
+	 *
+	 * @return {@link SharedMemoryRegion}
+	 * @throws Exception
+	 */
+	public static SharedMemoryRegion open() throws Exception {
+		File directory = new File(Constants.SHARED_MEMORY_DIR);
+		directory.mkdirs();
+		File file = new File(directory, Constants.SHARED_MEMORY_FILE_NAME);
+		Files.deleteIfExists(file.toPath());
+		SharedMemoryRegion region = new SharedMemoryRegion(file, Constants.SHARED_MEMORY_SIZE_BYTES,
+				Constants.SHARED_MEMORY_BLOCK_BYTES);
+		Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-rw-rw-"));
+		return region;
+	}
+
+	/**
+	 * reserves space for payload of publisher {@link Element}
+	 *
+	 * @param publisher - ID of {@link Element}
+	 * @param length - payload length
+	 * @return {@link SharedMemoryHandle} or null if there is no space
+	 */
+	public synchronized SharedMemoryHandle allocate(String publisher, int length) {
+		if (length < 0)
+			return null;
+		long bytes = (long) length + HEADER_BYTES;
+		int blocks = (int) ((bytes + blockSize - 1) / blockSize);
+		int start = findFreeBlocks(blocks);
+		if (start < 0) {
+			releaseExpired();
+			start = findFreeBlocks(blocks);
+			if (start < 0)
+				return null;
+		}
+
+		usedBlocks.set(start, start + blocks);
+		usedBytes += (long) blocks * blockSize;
+		long generation = ++nextGeneration;
+		long offset = (long) start * blockSize + HEADER_BYTES;
+		buffer.putLong((int) (offset - HEADER_BYTES), generation);
+
+		Allocation allocation = new Allocation(start, blocks, length, generation, publisher);
+		allocation.expiryTime = System.currentTimeMillis() + Constants.SHARED_MEMORY_TIMEOUT_SECONDS * 1000;
+		allocations.put(offset, allocation);
+		return new SharedMemoryHandle(offset, length, generation);
+	}
+
+	/**
+	 * sets receivers which have to acknowledge the payload before it is freed
+	 *
+	 * @param handle - {@link SharedMemoryHandle} carried by {@link Message}
+	 * @param publisher - ID of publisher {@link Element}
+	 * @param receivers - IDs of receiver {@link Element}
+	 * @return false if handle is not a live allocation of publisher
+	 */
+	public synchronized boolean publish(SharedMemoryHandle handle, String publisher, Collection<String> receivers) {
+		Allocation allocation = find(handle);
+		if (allocation == null || !allocation.publisher.equals(publisher) || handle.getLength() > allocation.length)
+			return false;
+
+		if (allocation.receivers == null)
+			allocation.receivers = new HashSet<>();
+		allocation.receivers.addAll(receivers);
+		allocation.expiryTime = System.currentTimeMillis() + Constants.SHARED_MEMORY_TIMEOUT_SECONDS * 1000;
+		if (allocation.receivers.isEmpty())
+			free(handle.getOffset(), allocation);
+		return true;
+	}
+
+	/**
+	 * drops reference of receiver and frees payload after the last one
+	 *
+	 * @param handle - {@link SharedMemoryHandle}
+	 * @param receiver - ID of receiver {@link Element}
+	 */
+	public synchronized void release(SharedMemoryHandle handle, String receiver) {
+		Allocation allocation = find(handle);
+		if (allocation == null || allocation.receivers == null)
+			return;
+		if (allocation.receivers.remove(receiver) && allocation.receivers.isEmpty())
+			free(handle.getOffset(), allocation);
+	}
+
+	/**
+	 * frees allocations which are not published or acknowledged in time
+	 *
+	 */
+	public synchronized void releaseExpired() {
+		long now = System.currentTimeMillis();
+		for (Iterator<Map.Entry<Long, Allocation>> it = allocations.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<Long, Allocation> entry = it.next();
+			if (entry.getValue().expiryTime > now)
+				continue;
+			clear(entry.getKey(), entry.getValue());
+			it.remove();
+		}
+	}
+
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	public long getSize() {
+		return (long) blockCount * blockSize;
+	}
+
+	public String getPath() {
+		return file.getPath();
+	}
+
+	public synchronized void close() {
+		allocations.clear();
+		usedBlocks.clear();
+		usedBytes = 0;
+		try {
+			raf.close();
+		} catch (Exception e) {}
+		file.delete();
+	}
+
+	private Allocation find(SharedMemoryHandle handle) {
+		Allocation allocation = allocations.get(handle.getOffset());
+		if (allocation == null || allocation.generation != handle.getGeneration())
+			return null;
+		return allocation;
+	}
+
+	private void free(long offset, Allocation allocation) {
+		allocations.remove(offset);
+		clear(offset, allocation);
+	}
+
+	private void clear(long offset, Allocation allocation) {
+		buffer.putLong((int) (offset - HEADER_BYTES), 0);
+		usedBlocks.clear(allocation.start, allocation.start + allocation.blocks);
+		usedBytes -= (long) allocation.blocks * blockSize;
+	}
+
+	/**
+	 * first fit search of contiguous free blocks
+	 *
+	 * @param blocks - number of blocks
+	 * @return index of first block or -1
+	 */
+	private int findFreeBlocks(int blocks) {
+		int start = usedBlocks.nextClearBit(0);
+		while (start + blocks <= blockCount) {
+			int used = usedBlocks.nextSetBit(start);
+			if (used < 0 || used >= start + blocks)
+				return start;
+			start = usedBlocks.nextClearBit(used);
+		}
+		return -1;
+	}
+
+	private static class Allocation {
+		private final int start;
+		private final int blocks;
+		private final int length;
+		private final long generation;
+		private final String publisher;
+		private Set<String> receivers;
+		private long expiryTime;
+
+		private Allocation(int start, int blocks, int length, long generation, String publisher) {
+			this.start = start;
+			this.blocks = blocks;
+			this.length = length;
+			this.generation = generation;
+			this.publisher = publisher;
+		}
+	}
+}
@@ -93,7 +93,7 @@ public class ContainerManager {
 				hostName = Orchestrator.getInetAddress().getHostAddress();
 			String id = docker.createContainer(element, hostName);
 			element.setContainerId(id);
-			element.setContainerIpAddress(docker.getContainerIpAddress(id));
+			elementManager.setElementIpAddress(element, docker.getContainerIpAddress(id));
 			element.setRebuild(false);
 			LoggingService.logInfo(MODULE_NAME, "created");
 		} catch (Exception ex) {
@@ -114,7 +114,7 @@ public class ContainerManager {
 		try {
 			docker.startContainer(element.getContainerId());
 			LoggingService.logInfo(MODULE_NAME, String.format("\"%s\" started", element.getImageName()));
-			element.setContainerIpAddress(docker.getContainerIpAddress(element.getContainerId()));
+			elementManager.setElementIpAddress(element, docker.getContainerIpAddress(element.getContainerId()));
 			StatusReporter.setProcessManagerStatus().getElementStatus(element.getElementId()).setStatus(ElementState.RUNNING);
 		} catch (Exception ex) {
 			LoggingService.logWarning(MODULE_NAME,
@@ -33,6 +33,8 @@ import org.eclipse.iofog.element.Element;
 import org.eclipse.iofog.element.ElementStatus;
 import org.eclipse.iofog.element.PortMapping;
 import org.eclipse.iofog.element.Registry;
+import org.eclipse.iofog.local_api.LocalApiServer;
+import org.eclipse.iofog.message_bus.MessageBus;
 import org.eclipse.iofog.utils.Constants;
 import org.eclipse.iofog.utils.Constants.ElementState;
 import org.eclipse.iofog.utils.configuration.Configuration;
@@ -470,6 +472,20 @@ public class DockerUtil {
                 volumeBindings.add(new Bind(volumeMapping.getHostDestination(), volume, accessMode));
 			});
 		}
+		List<String> env = new ArrayList<>();
+		env.add("SELFNAME=" + element.getElementId());
+		if (LocalApiServer.isUnixSocketBound()) {
+			Volume localApiSocket = new Volume(Constants.LOCAL_API_CONTAINER_SOCKET_DIR);
+			volumes.add(localApiSocket);
+			volumeBindings.add(new Bind(Constants.LOCAL_API_SOCKET_DIR, localApiSocket, AccessMode.rw));
+			env.add("IOFOG_SOCKET=" + Constants.LOCAL_API_CONTAINER_SOCKET_DIR + "/" + Constants.LOCAL_API_SOCKET_NAME);
+		}
+		if (MessageBus.isSharedMemoryOpen()) {
+			Volume sharedMemory = new Volume(Constants.SHARED_MEMORY_CONTAINER_DIR);
+			volumes.add(sharedMemory);
+			volumeBindings.add(new Bind(Constants.SHARED_MEMORY_DIR, sharedMemory, AccessMode.rw));
+			env.add("IOFOG_SHM=" + Constants.SHARED_MEMORY_CONTAINER_DIR + "/" + Constants.SHARED_MEMORY_FILE_NAME);
+		}
 		String[] extraHosts = { "iofabric:" + host, "iofog:" + host };
 		
 		Map<String, String> containerLogConfig = new HashMap<String, String>();
@@ -486,14 +502,11 @@ public class DockerUtil {
 				.withCpusetCpus("0")
 				.withExposedPorts(exposedPorts.toArray(new ExposedPort[0]))
 				.withPortBindings(portBindings)
-				.withEnv("SELFNAME=" + element.getElementId())
+				.withEnv(env.toArray(new String[env.size()]))
 				.withName(element.getElementId())
-				.withRestartPolicy(restartPolicy);
-		if(element.getVolumeMappings() != null) {
-			cmd = cmd
-					.withVolumes(volumes.toArray(new Volume[volumes.size()]))
-					.withBinds(volumeBindings.toArray(new Bind[volumeBindings.size()]));
-		}
+				.withRestartPolicy(restartPolicy)
+				.withVolumes(volumes.toArray(new Volume[volumes.size()]))
+				.withBinds(volumeBindings.toArray(new Bind[volumeBindings.size()]));
 		if (StringUtil.isNullOrEmpty(host))
 			cmd = cmd.withNetworkMode("host").withPrivileged(true);
 		else
@@ -141,7 +141,7 @@ public class FogContainer {
 			String hostName = Orchestrator.getInetAddress().getHostAddress();
 			containerId = docker.createContainer(element, hostName);
 			element.setContainerId(containerId);
-			element.setContainerIpAddress(docker.getContainerIpAddress(containerId));
+			ElementManager.getInstance().setElementIpAddress(element, docker.getContainerIpAddress(containerId));
 			element.setRebuild(false);
 			LoggingService.logInfo(MODULE_NAME, "created");
 			status = docker.getContainerStatus(containerId);
@@ -85,9 +85,9 @@ public class ProcessManager {
 			if (container != null && !element.isRebuild()) {
 				element.setContainerId(container.getId());
 				try {
-					element.setContainerIpAddress(docker.getContainerIpAddress(container.getId()));
+					elementManager.setElementIpAddress(element, docker.getContainerIpAddress(container.getId()));
 				} catch (Exception e) {
-					element.setContainerIpAddress("0.0.0.0");
+					elementManager.setElementIpAddress(element, "0.0.0.0");
 				}
 				long elementLastModified = element.getLastModified();
 				long containerCreated = container.getCreated();
@@ -139,7 +139,7 @@ public class ProcessManager {
 						}
 
 						element.setContainerId(container.getId());
-						element.setContainerIpAddress(docker.getContainerIpAddress(container.getId()));
+						elementManager.setElementIpAddress(element, docker.getContainerIpAddress(container.getId()));
 						try {
 							String containerName = container.getNames()[0].substring(1);
 							ElementStatus status = docker.getContainerStatus(container.getId());
@@ -108,6 +108,17 @@ public class ProcessManagerStatus {
 		return this;
 	}
 	
+	/**
+	 * returns snapshot of {@link Element} statuses
+	 * 
+	 * @return map of element IDs and {@link ElementStatus}
+	 */
+	public Map<String, ElementStatus> getElementsStatus() {
+		synchronized (elementsStatus) {
+			return new HashMap<>(elementsStatus);
+		}
+	}
+
 	public ElementStatus getElementStatus(String elementId) {
 		synchronized (elementsStatus) {
 			if (!this.elementsStatus.containsKey(elementId))
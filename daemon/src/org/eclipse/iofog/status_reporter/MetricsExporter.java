@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.status_reporter;
+
+import java.util.Map;
+
+import org.eclipse.iofog.element.ElementStatus;
+import org.eclipse.iofog.field_agent.FieldAgentStatus;
+import org.eclipse.iofog.local_api.LocalApiStatus;
+import org.eclipse.iofog.message_bus.MessageBusStatus;
+import org.eclipse.iofog.message_bus.RouteLatency;
+import org.eclipse.iofog.message_bus.RouteLatency.Stage;
+import org.eclipse.iofog.process_manager.ProcessManagerStatus;
+import org.eclipse.iofog.resource_consumption_manager.ResourceConsumptionManagerStatus;
+import org.eclipse.iofog.supervisor.SupervisorStatus;
+import org.eclipse.iofog.utils.Constants;
+import org.eclipse.iofog.utils.Constants.ModulesStatus;
+import org.eclipse.iofog.utils.LatencyHistogram;
+
+/**
+ * renders status of modules in Prometheus text exposition format
+ * 
+ * @author saeid
+ *
+ */
+public final class MetricsExporter {
+	private static final String[] MODULE_NAMES = { "resource_consumption_manager", "process_manager",
+			"status_reporter", "local_api", "message_bus", "field_agent" };
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private MetricsExporter() {
+	}
+
+	private static void header(StringBuilder out, String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder out, String name, String labels, double value) {
+		out.append(name);
+		if (labels != null)
+			out.append('{').append(labels).append('}');
+		out.append(' ');
+		if (value == Math.rint(value) && !Double.isInfinite(value))
+			out.append((long) value);
+		else
+			out.append(value);
+		out.append('\n');
+	}
+
+	private static void metric(StringBuilder out, String name, String type, String help, double value) {
+		header(out, name, type, help);
+		sample(out, name, null, value);
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static String label(String name, String value) {
+		return name + "=\"" + escape(value) + "\"";
+	}
+
+	/**
+	 * renders all metrics
+	 * 
+	 * @return metrics in text format
+	 */
+	public static String render() {
+		StringBuilder out = new StringBuilder(4096);
+
+		SupervisorStatus supervisor = StatusReporter.getSupervisorStatus();
+		header(out, "iofog_module_up", "gauge", "1 if module is running");
+		for (int i = 0; i < Constants.NUMBER_OF_MODULES; i++)
+			sample(out, "iofog_module_up", label("module", MODULE_NAMES[i]),
+					supervisor.getModuleStatus(i) == ModulesStatus.RUNNING ? 1 : 0);
+		metric(out, "iofog_daemon_start_time_milliseconds", "gauge", "Time the daemon started", supervisor.getDaemonLastStart());
+
+		ResourceConsumptionManagerStatus resources = StatusReporter.getResourceConsumptionManagerStatus();
+		metric(out, "iofog_memory_usage_mebibytes", "gauge", "Memory used by the daemon", resources.getMemoryUsage());
+		metric(out, "iofog_disk_usage_gibibytes", "gauge", "Disk used by the daemon", resources.getDiskUsage());
+		metric(out, "iofog_cpu_usage_percent", "gauge", "CPU used by the daemon", resources.getCpuUsage());
+		header(out, "iofog_resource_violation", "gauge", "1 if resource usage is over the limit");
+		sample(out, "iofog_resource_violation", label("resource", "memory"), resources.isMemoryViolation() ? 1 : 0);
+		sample(out, "iofog_resource_violation", label("resource", "disk"), resources.isDiskViolation() ? 1 : 0);
+		sample(out, "iofog_resource_violation", label("resource", "cpu"), resources.isCpuViolation() ? 1 : 0);
+
+		ProcessManagerStatus processManager = StatusReporter.getProcessManagerStatus();
+		metric(out, "iofog_running_elements", "gauge", "Number of running elements", processManager.getRunningElementsCount());
+		Map<String, ElementStatus> elements = processManager.getElementsStatus();
+		header(out, "iofog_element_cpu_usage_percent", "gauge", "CPU used by element container");
+		elements.forEach((id, status) -> sample(out, "iofog_element_cpu_usage_percent", label("element", id), status.getCpuUsage()));
+		header(out, "iofog_element_memory_usage_bytes", "gauge", "Memory used by element container");
+		elements.forEach((id, status) -> sample(out, "iofog_element_memory_usage_bytes", label("element", id), status.getMemoryUsage()));
+
+		FieldAgentStatus fieldAgent = StatusReporter.getFieldAgentStatus();
+		header(out, "iofog_controller_status", "gauge", "1 for current connection status to controller");
+		for (Constants.ControllerStatus status : Constants.ControllerStatus.values())
+			sample(out, "iofog_controller_status", label("status", status.name().toLowerCase()),
+					fieldAgent.getContollerStatus() == status ? 1 : 0);
+		metric(out, "iofog_last_command_time_milliseconds", "gauge", "Time of last command from controller", fieldAgent.getLastCommandTime());
+
+		StatusReporterStatus statusReporter = StatusReporter.getStatusReporterStatus();
+		metric(out, "iofog_system_time_milliseconds", "gauge", "System time recorded by the status reporter", statusReporter.getSystemTime());
+		metric(out, "iofog_status_last_update_time_milliseconds", "gauge", "Time status was last updated", statusReporter.getLastUpdate());
+
+		LocalApiStatus localApi = StatusReporter.getLocalApiStatus();
+		metric(out, "iofog_open_control_sockets", "gauge", "Number of open control websockets", localApi.getOpenConfigSocketsCount());
+		metric(out, "iofog_open_message_sockets", "gauge", "Number of open message websockets", localApi.getOpenMessageSocketsCount());
+
+		MessageBusStatus messageBus = StatusReporter.getMessageBusStatus();
+		metric(out, "iofog_messages_processed_total", "counter", "Messages published to the message bus", messageBus.getProcessedMessages());
+		header(out, "iofog_messages_published_total", "counter", "Messages published by element");
+		messageBus.getPublishedMessagesPerElement().forEach((id, count) ->
+			sample(out, "iofog_messages_published_total", label("element", id), count));
+		header(out, "iofog_message_rate", "gauge", "Messages per second as moving average");
+		sample(out, "iofog_message_rate", label("window", "1s"), messageBus.getMessageRate().getOneSecondRate());
+		sample(out, "iofog_message_rate", label("window", "1m"), messageBus.getMessageRate().getOneMinuteRate());
+		sample(out, "iofog_message_rate", label("window", "5m"), messageBus.getMessageRate().getFiveMinuteRate());
+		metric(out, "iofog_message_queue_depth", "gauge", "Messages waiting in the message bus queue", messageBus.getQueueDepth());
+
+		header(out, "iofog_route_latency_seconds", "summary", "Latency from publish to each stage of a route");
+		for (RouteLatency routeLatency : messageBus.getRouteLatencies()) {
+			for (Stage stage : Stage.values()) {
+				LatencyHistogram histogram = routeLatency.getHistogram(stage);
+				String labels = label("publisher", routeLatency.getPublisher()) + ","
+						+ label("receiver", routeLatency.getReceiver()) + ","
+						+ label("stage", stage.name().toLowerCase());
+				for (double quantile : QUANTILES)
+					sample(out, "iofog_route_latency_seconds", labels + "," + label("quantile", String.valueOf(quantile)),
+							histogram.getPercentile(quantile * 100) / 1e9);
+				sample(out, "iofog_route_latency_seconds_sum", labels, histogram.getSum() / 1e9);
+				sample(out, "iofog_route_latency_seconds_count", labels, histogram.getCount());
+			}
+		}
+
+		return out.toString();
+	}
+}
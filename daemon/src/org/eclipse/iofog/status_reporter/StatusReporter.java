@@ -45,6 +45,7 @@ public final class StatusReporter {
 	private static MessageBusStatus messageBusStatus = new MessageBusStatus();
 	
 	private static String MODULE_NAME = "Status Reporter";
+	private static volatile String metricsSnapshot = "";
 	
 	/**
 	 * sets system time property
@@ -56,6 +57,18 @@ public final class StatusReporter {
 		} catch (Exception e) {}
 	};
 	
+	/**
+	 * renders metrics snapshot served to scrapers
+	 * 
+	 */
+	private static Runnable renderMetrics = () -> {
+		try {
+			metricsSnapshot = MetricsExporter.render();
+		} catch (Exception e) {
+			LoggingService.logWarning(MODULE_NAME, "unable to render metrics --> " + e.getMessage());
+		}
+	};
+	
 	private StatusReporter() {
 	}
 
@@ -84,6 +97,10 @@ public final class StatusReporter {
 		result.append("\\nRunning Elements            : " + processManagerStatus.getRunningElementsCount());
 		result.append("\\nConnection to Controller    : " + connectionStatus);
 		result.append(String.format("\\nMessages Processed          : about %,d", messageBusStatus.getProcessedMessages())); 
+		result.append(String.format("\\nMessage Rate (1s/1m/5m)     : %.2f / %.2f / %.2f per second",
+				messageBusStatus.getMessageRate().getOneSecondRate(),
+				messageBusStatus.getMessageRate().getOneMinuteRate(),
+				messageBusStatus.getMessageRate().getFiveMinuteRate()));
 		result.append("\\nSystem Time                 : " + 		dateFormat.format(cal.getTime()));
 		
 		return result.toString();
@@ -152,6 +169,15 @@ public final class StatusReporter {
 		return localApiStatus;
 	}
 
+	/**
+	 * returns last rendered metrics in Prometheus text format
+	 * 
+	 * @return metrics
+	 */
+	public static String getMetrics() {
+		return metricsSnapshot;
+	}
+
 	/**
 	 * starts Status Reporter module
 	 * 
@@ -159,6 +185,7 @@ public final class StatusReporter {
 	public static void start() {
 		ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 		scheduler.scheduleAtFixedRate(setStatusReporterSystemTime, Constants.SET_SYSTEM_TIME_FREQ_SECONDS, Constants.SET_SYSTEM_TIME_FREQ_SECONDS, TimeUnit.SECONDS);
+		scheduler.scheduleAtFixedRate(renderMetrics, 0, Constants.METRICS_SNAPSHOT_FREQ_SECONDS, TimeUnit.SECONDS);
 		LoggingService.logInfo(MODULE_NAME, "started");
 	}
 
@@ -40,6 +40,10 @@ public class Constants {
 	public enum ControllerStatus {
 		NOT_PROVISIONED, BROKEN, OK
 	}
+
+	public enum ReassemblyMode {
+		ORDERED, ASSEMBLED
+	}
 	
 	public static final String VERSION = "0.52";
 	
@@ -69,7 +73,12 @@ public class Constants {
 	public static final int PING_CONTROLLER_FREQ_SECONDS = 60;
 	public static final int POST_STATUS_FREQ_SECONDS = osArch.equals("arm") ? 20 : 5;
 
-	public static final int SPEED_CALCULATION_FREQ_MINUTES = 1;
+
+	public static final int MESSAGE_LEASE_TIMEOUT_SECONDS = 30;
+	public static final int MAX_LEASED_MESSAGES_PER_RECEIVER = 10_000;
+
+	public static final int REASSEMBLY_TIMEOUT_SECONDS = 30;
+	public static final long REASSEMBLY_MAX_BUFFER_BYTES = 32 * MiB;
 
 	public static final int MONITOR_CONTAINERS_STATUS_FREQ_SECONDS = osArch.equals("arm") ? 30 : 10;
 	public static final int MONITOR_REGISTRIES_STATUS_FREQ_SECONDS = osArch.equals("arm") ? 120 : 60;
@@ -79,12 +88,45 @@ public class Constants {
 	public static final String DOCKER_API_VERSION = osArch.equals("arm") ? "1.23" : "1.23";
 
 	public static int SET_SYSTEM_TIME_FREQ_SECONDS = 60;
+
+	public static final int LOCAL_API_BACKLOG = 1024;
+	public static final int LOCAL_API_WRITE_BUFFER_HIGH_WATER_MARK = 256 * KiB;
+	public static final int LOCAL_API_WRITE_BUFFER_LOW_WATER_MARK = 64 * KiB;
+	public static final int LOCAL_API_MAX_PIPELINED_REQUESTS = 64;
+	public static final long LOCAL_API_MAX_BODY_BYTES = 64 * KiB;
+	public static final long LOCAL_API_MAX_PROXY_BODY_BYTES = MiB;
+	public static final long LOCAL_API_MAX_MESSAGE_BODY_BYTES = Long.getLong("localapi.maxmessagebody", 32 * MiB);
+	public static final int LOCAL_API_MESSAGE_WINDOW = Integer.getInteger("localapi.window", 64);
+	public static final int LOCAL_API_MESSAGE_BACKLOG = Integer.getInteger("localapi.backlog", 4096);
+	public static final String LOCAL_API_GROUP_BALANCING = System.getProperty("localapi.groupbalancing", "leastinflight");
+	public static final int LOCAL_API_MESSAGE_BATCH = Integer.getInteger("localapi.batch", 64);
+	public static final long LOCAL_API_MESSAGE_BATCH_DELAY_MICROS = Long.getLong("localapi.batchdelay", 0);
+	public static final boolean LOCAL_API_COMPRESSION = System.getProperty("localapi.nocompression") == null;
+	public static final int LOCAL_API_COMPRESSION_LEVEL = Integer.getInteger("localapi.compressionlevel", 6);
+	public static final int LOCAL_API_COMPRESSION_THRESHOLD = Integer.getInteger("localapi.compressionthreshold", KiB);
+	public static final long LOCAL_API_RETRANSMIT_MILLIS = Long.getLong("localapi.retransmit", 2000);
+	public static final long LOCAL_API_MAX_RETRANSMIT_MILLIS = 60_000;
+	public static final long LOCAL_API_ACK_TIMER_TICK_MILLIS = 10;
+	public static final int LOCAL_API_WEBSOCKET_PING_SECONDS = Integer.getInteger("localapi.pingseconds", 30);
+	public static final int LOCAL_API_WEBSOCKET_MAX_MISSED_PINGS = 3;
+	public static final int LOCAL_API_MAX_SEND_TRIES = 10;
+	public static int METRICS_SNAPSHOT_FREQ_SECONDS = 5;
 	
 	public static int FOG_TYPE = osArch.equals("arm") ? 2 : 1;
 	
 	public static String SNAP = System.getenv("SNAP") != null ? System.getenv("SNAP") : "";
 	public static String SNAP_COMMON = System.getenv("SNAP_COMMON") != null ? System.getenv("SNAP_COMMON") : "";
 	public static String VAR_RUN = SNAP_COMMON + "/var/run/iofog";
+	public static String LOCAL_API_SOCKET_DIR = VAR_RUN + "/localapi";
+	public static final String LOCAL_API_SOCKET_NAME = "iofog.sock";
+	public static final String LOCAL_API_CONTAINER_SOCKET_DIR = "/var/run/iofog";
+	public static final boolean SHARED_MEMORY = System.getProperty("sharedmemory") != null;
+	public static String SHARED_MEMORY_DIR = "/dev/shm/iofog";
+	public static final String SHARED_MEMORY_FILE_NAME = "payload.region";
+	public static final String SHARED_MEMORY_CONTAINER_DIR = "/dev/shm/iofog";
+	public static final long SHARED_MEMORY_SIZE_BYTES = Long.getLong("sharedmemory.size", 256 * MiB);
+	public static final int SHARED_MEMORY_BLOCK_BYTES = 64 * KiB;
+	public static final int SHARED_MEMORY_TIMEOUT_SECONDS = 60;
 	public static String CONFIG_DIR = SNAP_COMMON + "/etc/iofog/config.xml";
 	
 	
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+
+/**
+ * histogram of latencies in nanoseconds with log-linear buckets.
+ * each power of 2 is split into 8 buckets, so recorded values keep
+ * 12.5% precision. recording is lock-free and allocation-free
+ * 
+ * @author saeid
+ *
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts;
+	private final LongAdder totalCount;
+	private final LongAdder totalValue;
+	private final LongAccumulator maxValue;
+
+	public LatencyHistogram() {
+		counts = new AtomicLongArray(BUCKET_COUNT);
+		totalCount = new LongAdder();
+		totalValue = new LongAdder();
+		maxValue = new LongAccumulator(Math::max, 0);
+	}
+
+	private static int getBucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT)
+			return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * returns middle value of bucket
+	 * 
+	 * @param index - bucket index
+	 * @return value
+	 */
+	private static long getBucketValue(int index) {
+		if (index < SUB_BUCKET_COUNT)
+			return index;
+		int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		long subBucket = index % SUB_BUCKET_COUNT;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return ((SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS)) + width / 2;
+	}
+
+	/**
+	 * records a latency
+	 * 
+	 * @param nanos - latency in nanoseconds, negative values are ignored
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			return;
+		counts.incrementAndGet(getBucketIndex(nanos));
+		totalCount.increment();
+		totalValue.add(nanos);
+		maxValue.accumulate(nanos);
+	}
+
+	public long getCount() {
+		return totalCount.sum();
+	}
+
+	public long getSum() {
+		return totalValue.sum();
+	}
+
+	public long getMax() {
+		return maxValue.get();
+	}
+
+	public long getMean() {
+		long count = totalCount.sum();
+		return count == 0 ? 0 : totalValue.sum() / count;
+	}
+
+	/**
+	 * returns value at percentile
+	 * 
+	 * @param percentile - between 0 and 100
+	 * @return latency in nanoseconds
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0)
+			return 0;
+
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			if (seen >= target)
+				return Math.min(getBucketValue(i), getMax());
+		}
+		return getMax();
+	}
+
+	/**
+	 * returns summary of histogram in microseconds
+	 * 
+	 * @return {@link JsonObjectBuilder}
+	 */
+	public JsonObjectBuilder toJson() {
+		return Json.createObjectBuilder()
+				.add("count", getCount())
+				.add("mean", getMean() / 1000)
+				.add("p50", getPercentile(50) / 1000)
+				.add("p90", getPercentile(90) / 1000)
+				.add("p99", getPercentile(99) / 1000)
+				.add("p999", getPercentile(99.9) / 1000)
+				.add("max", getMax() / 1000);
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2016, 2017 Iotracks, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Saeid Baghbidi
+ * Kilton Hopkins
+ *  Ashita Nagar
+ *******************************************************************************/
+package org.eclipse.iofog.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * measures rate of events as exponentially weighted moving averages
+ * over 1 second, 1 minute and 5 minutes. events are counted without locking
+ * and averages are updated lazily once per tick by the first caller
+ * 
+ * @author saeid
+ *
+ */
+public class RateMeter {
+	private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+	private final LongAdder uncounted;
+	private final AtomicLong lastTick;
+	private final MovingAverage oneSecondRate;
+	private final MovingAverage oneMinuteRate;
+	private final MovingAverage fiveMinuteRate;
+
+	public RateMeter() {
+		uncounted = new LongAdder();
+		lastTick = new AtomicLong(System.nanoTime());
+		oneSecondRate = new MovingAverage(1);
+		oneMinuteRate = new MovingAverage(60);
+		fiveMinuteRate = new MovingAverage(300);
+	}
+
+	/**
+	 * records an event
+	 * 
+	 */
+	public void mark() {
+		tickIfNecessary();
+		uncounted.increment();
+	}
+
+	/**
+	 * updates averages if at least one tick has elapsed
+	 * events counted so far are accounted to the first elapsed tick
+	 * 
+	 */
+	private void tickIfNecessary() {
+		long oldTick = lastTick.get();
+		long now = System.nanoTime();
+		long age = now - oldTick;
+		if (age < TICK_INTERVAL)
+			return;
+		long newTick = now - age % TICK_INTERVAL;
+		if (!lastTick.compareAndSet(oldTick, newTick))
+			return;
+		long ticks = age / TICK_INTERVAL;
+		long count = uncounted.sumThenReset();
+		oneSecondRate.tick(count, ticks);
+		oneMinuteRate.tick(count, ticks);
+		fiveMinuteRate.tick(count, ticks);
+	}
+
+	/**
+	 * returns events per second over last second
+	 * 
+	 * @return rate
+	 */
+	public double getOneSecondRate() {
+		tickIfNecessary();
+		return oneSecondRate.rate;
+	}
+
+	/**
+	 * returns events per second over last minute
+	 * 
+	 * @return rate
+	 */
+	public double getOneMinuteRate() {
+		tickIfNecessary();
+		return oneMinuteRate.rate;
+	}
+
+	/**
+	 * returns events per second over last 5 minutes
+	 * 
+	 * @return rate
+	 */
+	public double getFiveMinuteRate() {
+		tickIfNecessary();
+		return fiveMinuteRate.rate;
+	}
+
+	private static class MovingAverage {
+		private final double alpha;
+		private volatile double rate;
+		private boolean initialized;
+
+		private MovingAverage(int windowSeconds) {
+			alpha = 1 - Math.exp(-1.0 / windowSeconds);
+		}
+
+		/**
+		 * only one thread ticks at a time, guarded by {@link RateMeter#lastTick}
+		 * 
+		 * @param count - events in first elapsed tick
+		 * @param ticks - number of elapsed ticks
+		 */
+		private void tick(long count, long ticks) {
+			double current = rate;
+			if (initialized) {
+				current += alpha * (count - current);
+			} else {
+				current = count;
+				initialized = true;
+			}
+			if (ticks > 1)
+				current *= Math.pow(1 - alpha, ticks - 1);
+			rate = current;
+		}
+	}
+}
@@ -29,6 +29,7 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
 import org.eclipse.iofog.field_agent.FieldAgent;
+import org.eclipse.iofog.local_api.LocalApi;
 import org.eclipse.iofog.message_bus.MessageBus;
 import org.eclipse.iofog.process_manager.ProcessManager;
 import org.eclipse.iofog.resource_consumption_manager.ResourceConsumptionManager;
@@ -208,6 +209,7 @@ public final class Configuration {
 		ResourceConsumptionManager.getInstance().instanceConfigUpdated();
 		LoggingService.instanceConfigUpdated();
 		MessageBus.getInstance().instanceConfigUpdated();
+		LocalApi.getInstance().instanceConfigUpdated();
 
 		Transformer transformer = TransformerFactory.newInstance().newTransformer();
 		transformer.setOutputProperty(OutputKeys.INDENT, "yes");